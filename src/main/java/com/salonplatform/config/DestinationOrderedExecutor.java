@@ -0,0 +1,104 @@
+package com.salonplatform.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Channel executor that keeps messages for the same destination in send
+ * order while different destinations are handled in parallel.
+ *
+ * Messages for one destination form a strand: at most one of them is on
+ * a delegate thread at a time, the rest wait in the strand's queue. Tasks
+ * without a destination go straight to the delegate.
+ */
+@Slf4j
+final class DestinationOrderedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final Map<String, Strand> strands = new ConcurrentHashMap<>();
+
+    DestinationOrderedExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        String destination = destination(task);
+        if (destination == null) {
+            delegate.execute(task);
+            return;
+        }
+
+        Strand[] started = new Strand[1];
+        strands.compute(destination, (key, strand) -> {
+            Strand current = strand != null ? strand : new Strand(key);
+            current.tasks.add(task);
+            if (!current.running) {
+                current.running = true;
+                started[0] = current;
+            }
+            return current;
+        });
+        if (started[0] != null) {
+            try {
+                delegate.execute(started[0]);
+            } catch (RejectedExecutionException e) {
+                strands.remove(destination);
+                throw e;
+            }
+        }
+    }
+
+    private static String destination(Runnable task) {
+        if (task instanceof MessageHandlingRunnable runnable) {
+            return SimpMessageHeaderAccessor.getDestination(runnable.getMessage().getHeaders());
+        }
+        return null;
+    }
+
+    private final class Strand implements Runnable {
+        private final String destination;
+        // Guarded by the strands map entry
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        Strand(String destination) {
+            this.destination = destination;
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            while ((task = next()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Keep draining: later messages for the destination must still go out
+                    log.error("Failed to handle message for {}", destination, e);
+                }
+            }
+        }
+
+        /** Next task of this strand, or null once it is empty and removed */
+        private Runnable next() {
+            Runnable[] next = new Runnable[1];
+            strands.compute(destination, (key, strand) -> {
+                next[0] = tasks.poll();
+                if (next[0] == null) {
+                    running = false;
+                    return null;
+                }
+                return strand;
+            });
+            return next[0];
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.salonplatform.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * In relay mode, sends queue requests reaching a node other than the queue
+ * writer to the writer (307, so method and body are kept).
+ *
+ * Only the writer applies queue changes, so only its snapshot cache, delta
+ * versions and event streams follow the queue; on any other node they
+ * would never change. Queue reads, the versioned snapshot and the SSE
+ * streams fed by queue changes are therefore served by the writer, while
+ * STOMP sessions stay on the node holding them and receive the writer's
+ * deltas through the broker.
+ */
+@Component
+class QueueWriterRedirectFilter extends OncePerRequestFilter {
+
+    private static final List<PathPattern> WRITER_PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/api/v1/queue/**"),
+            PathPatternParser.defaultInstance.parse("/api/v1/salons/{salonId}/available-slots/stream"));
+
+    // Null on the writer itself and outside relay mode
+    private final String writerUrl;
+
+    QueueWriterRedirectFilter(@Value("${app.websocket.broker.mode:simple}") String brokerMode,
+                              @Value("${app.websocket.broker.relay.writer-url:}") String writerUrl) {
+        this.writerUrl = "relay".equalsIgnoreCase(brokerMode) && StringUtils.hasText(writerUrl)
+                ? StringUtils.trimTrailingCharacter(writerUrl.strip(), '/')
+                : null;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (writerUrl == null) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        return WRITER_PATHS.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) {
+        String location = writerUrl + request.getRequestURI();
+        if (request.getQueryString() != null) {
+            location += "?" + request.getQueryString();
+        }
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location);
+    }
+}
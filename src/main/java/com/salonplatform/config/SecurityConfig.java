@@ -52,8 +52,9 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/salons/nearby", "/api/v1/salons/search", "/api/v1/salons/{id}").permitAll()
-                        .requestMatchers("/api/v1/salons/{id}/services", "/api/v1/salons/{id}/available-slots").permitAll()
-                        .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/api/v1/salons/{id}/services", "/api/v1/salons/{id}/available-slots",
+                                "/api/v1/salons/{id}/available-slots/stream").permitAll()
+                        .requestMatchers("/ws/**", "/ws-binary").permitAll()
                         .requestMatchers("/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/actuator/health", "/api/v1/health/**").permitAll()
 
@@ -0,0 +1,374 @@
+package com.salonplatform.config;
+
+import com.salonplatform.service.QueueBroadcaster;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound backpressure for WebSocket sessions.
+ *
+ * Every session gets its own outbound buffer, drained by at most one
+ * writer thread at a time, so a client on a poor network never blocks the
+ * outbound channel. Writer threads are started on demand rather than
+ * shared from a fixed pool, so a session stuck in a blocking write holds
+ * only its own writer and never delays delivery to other sessions. While a write to a slow client is still in progress,
+ * a newer queue frame for the same subscription replaces the buffered one
+ * ("latest snapshot wins"): the client sees the version gap and resyncs
+ * from the snapshot endpoint instead of replaying every stale delta.
+ * Position frames carry full state and are replaced per salon. Other
+ * frames are kept in order.
+ *
+ * A session whose buffer exceeds the byte limit is closed when the next
+ * frame is queued. A watchdog closes sessions whose current write has been
+ * blocked longer than the send time limit, which also ends the blocked
+ * write and frees its writer.
+ */
+@Component
+@Slf4j
+public class SlowConsumerGuard implements WebSocketHandlerDecoratorFactory {
+
+    private static final String SALON_TOPIC_PREFIX = "/topic/salon/";
+    private static final String USER_POSITION_DESTINATION = "/user" + QueueBroadcaster.POSITION_DESTINATION;
+
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final boolean coalesce;
+    private final ThreadPoolExecutor writers;
+    private final ScheduledExecutorService watchdog;
+    private final Set<BufferedSession> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final Counter superseded;
+    private final Counter closedOnBuffer;
+    private final Counter closedOnSendTime;
+    private final DistributionSummary bufferSizes;
+
+    public SlowConsumerGuard(MeterRegistry meterRegistry,
+                             @Value("${app.websocket.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                             @Value("${app.websocket.send-buffer-size-limit:262144}") int bufferSizeLimit,
+                             @Value("${app.websocket.coalesce-queue-frames:true}") boolean coalesce,
+                             @Value("${app.websocket.outbound.writer-threads:4}") int writerThreads,
+                             @Value("${app.websocket.outbound.max-writer-threads:512}") int maxWriterThreads) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.coalesce = coalesce;
+        AtomicInteger threadCount = new AtomicInteger();
+        // No queue: a drain either gets a writer of its own or is retried by the watchdog
+        this.writers = new ThreadPoolExecutor(writerThreads, Math.max(writerThreads, maxWriterThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "ws-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkIntervalMs = Math.max(10, sendTimeLimitMs / 4);
+        watchdog.scheduleWithFixedDelay(this::checkSends, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+
+        this.superseded = Counter.builder("websocket.frames.dropped")
+                .tag("reason", "superseded")
+                .description("Queue frames replaced by a newer one before a slow session received them")
+                .register(meterRegistry);
+        this.closedOnBuffer = Counter.builder("websocket.sessions.closed")
+                .tag("reason", "buffer-size")
+                .description("Sessions closed because their outbound buffer exceeded the limit")
+                .register(meterRegistry);
+        this.closedOnSendTime = Counter.builder("websocket.sessions.closed")
+                .tag("reason", "send-time")
+                .description("Sessions closed because a write was blocked longer than the limit")
+                .register(meterRegistry);
+        this.bufferSizes = DistributionSummary.builder("websocket.session.buffer")
+                .baseUnit("bytes")
+                .description("Outbound bytes buffered for a session when a frame is queued")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions.guarded", sessions, AtomicInteger::get)
+                .description("Open WebSocket sessions with an outbound buffer")
+                .register(meterRegistry);
+    }
+
+    public int getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    public int getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            private final Map<String, WebSocketSession> guarded = new ConcurrentHashMap<>();
+
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                WebSocketSession buffered = new BufferedSession(session);
+                guarded.put(session.getId(), buffered);
+                sessions.incrementAndGet();
+                super.afterConnectionEstablished(buffered);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(guarded.getOrDefault(session.getId(), session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(guarded.getOrDefault(session.getId(), session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                WebSocketSession buffered = guarded.remove(session.getId());
+                if (buffered != null) {
+                    sessions.decrementAndGet();
+                    ((BufferedSession) buffered).discard();
+                }
+                super.afterConnectionClosed(buffered != null ? buffered : session, closeStatus);
+            }
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    private void checkSends() {
+        long now = System.currentTimeMillis();
+        for (BufferedSession session : open) {
+            try {
+                session.checkSend(now);
+            } catch (RuntimeException e) {
+                log.warn("Send check failed for WebSocket session {}", session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Key under which a newer frame replaces a buffered one, or null for
+     * frames that must all be delivered. Only the STOMP header block is read.
+     */
+    static String coalesceKey(WebSocketMessage<?> message) {
+        String headers;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            int end = payload.indexOf("\n\n");
+            headers = end >= 0 ? payload.substring(0, end) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().asReadOnlyBuffer();
+            int end = payload.position();
+            while (end < payload.limit() - 1 && !(payload.get(end) == '\n' && payload.get(end + 1) == '\n')) {
+                end++;
+            }
+            byte[] block = new byte[end - payload.position()];
+            payload.get(block);
+            headers = new String(block, StandardCharsets.UTF_8);
+        } else {
+            return null;
+        }
+
+        if (!headers.startsWith("MESSAGE\n")) {
+            return null;
+        }
+
+        String destination = null;
+        String subscription = null;
+        String salonId = null;
+        for (String line : headers.split("\n")) {
+            if (line.startsWith("destination:")) {
+                destination = line.substring("destination:".length());
+            } else if (line.startsWith("subscription:")) {
+                subscription = line.substring("subscription:".length());
+            } else if (line.startsWith(QueueBroadcaster.SALON_HEADER + ":")) {
+                salonId = line.substring(QueueBroadcaster.SALON_HEADER.length() + 1);
+            }
+        }
+
+        if (destination == null || subscription == null) {
+            return null;
+        }
+        if (destination.startsWith(SALON_TOPIC_PREFIX)) {
+            return subscription;
+        }
+        if (destination.equals(USER_POSITION_DESTINATION) && salonId != null) {
+            return subscription + "|" + salonId;
+        }
+        return null;
+    }
+
+    /**
+     * Session whose sends only buffer the frame; a writer thread delivers
+     * buffered frames one at a time in order.
+     */
+    final class BufferedSession extends WebSocketSessionDecorator {
+
+        // Frames in send order; coalescable frames under their key, others under a unique key
+        private final LinkedHashMap<Object, WebSocketMessage<?>> buffer = new LinkedHashMap<>();
+        private int bufferSize;
+        private boolean draining;
+        private boolean discarded;
+        private volatile long sendStartTime;
+
+        BufferedSession(WebSocketSession delegate) {
+            super(delegate);
+            open.add(this);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            String key = coalesce ? coalesceKey(message) : null;
+
+            synchronized (buffer) {
+                if (discarded) {
+                    return;
+                }
+
+                if (key != null) {
+                    WebSocketMessage<?> replaced = buffer.remove(key);
+                    if (replaced != null) {
+                        bufferSize -= replaced.getPayloadLength();
+                        superseded.increment();
+                    }
+                }
+                buffer.put(key != null ? key : new Object(), message);
+                bufferSize += message.getPayloadLength();
+                bufferSizes.record(bufferSize);
+
+                checkLimits();
+                startDrain();
+            }
+        }
+
+        private void checkLimits() {
+            if (bufferSize > bufferSizeLimit) {
+                closedOnBuffer.increment();
+                discardBuffer();
+                throw new SessionLimitExceededException(String.format(
+                        "Buffer size %d bytes for session '%s' exceeds the allowed limit %d",
+                        bufferSize, getId(), bufferSizeLimit),
+                        CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+
+        /**
+         * Hand the buffer to a writer unless one is already draining it.
+         * Called with the buffer lock held.
+         */
+        private void startDrain() {
+            if (draining || discarded || buffer.isEmpty()) {
+                return;
+            }
+            try {
+                draining = true;
+                writers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // All writers busy; the watchdog retries on its next check
+                draining = false;
+            }
+        }
+
+        /**
+         * Watchdog check: close the session if its current write has been
+         * blocked too long, otherwise resume a drain that found no writer
+         */
+        void checkSend(long now) {
+            long sendStart = sendStartTime;
+            synchronized (buffer) {
+                if (discarded) {
+                    return;
+                }
+                if (sendStart == 0 || now - sendStart <= sendTimeLimitMs) {
+                    startDrain();
+                    return;
+                }
+                discardBuffer();
+            }
+
+            closedOnSendTime.increment();
+            log.debug("Closing WebSocket session {}: send blocked for {} ms (limit {} ms)",
+                    getId(), now - sendStart, sendTimeLimitMs);
+            // Closing may itself wait on the blocked connection, so keep it off the watchdog
+            try {
+                writers.execute(() -> closeQuietly(CloseStatus.SESSION_NOT_RELIABLE));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                WebSocketMessage<?> next;
+                synchronized (buffer) {
+                    Iterator<WebSocketMessage<?>> frames = buffer.values().iterator();
+                    if (discarded || !frames.hasNext()) {
+                        draining = false;
+                        return;
+                    }
+                    next = frames.next();
+                    frames.remove();
+                    bufferSize -= next.getPayloadLength();
+                }
+
+                try {
+                    sendStartTime = System.currentTimeMillis();
+                    getDelegate().sendMessage(next);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Failed to send to WebSocket session {}: {}", getId(), e.getMessage());
+                    discard();
+                    closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+                } finally {
+                    sendStartTime = 0;
+                }
+            }
+        }
+
+        void discard() {
+            synchronized (buffer) {
+                discardBuffer();
+            }
+        }
+
+        private void discardBuffer() {
+            discarded = true;
+            open.remove(this);
+            buffer.clear();
+            bufferSize = 0;
+        }
+
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            discard();
+            super.close(status);
+        }
+
+        private void closeQuietly(CloseStatus status) {
+            try {
+                getDelegate().close(status);
+            } catch (IOException e) {
+                log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+            }
+        }
+    }
+}
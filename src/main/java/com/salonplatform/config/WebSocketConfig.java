@@ -1,28 +1,218 @@
 package com.salonplatform.config;
 
+import com.salonplatform.security.StompAuthChannelInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.*;
 
+import java.util.concurrent.TimeUnit;
+
 // ============== WebSocket Configuration ==============
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    static final String[] BROKER_PREFIXES = {"/topic", "/queue"};
+
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final MeterRegistry meterRegistry;
+    private TaskScheduler heartbeatScheduler;
+
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.channel.keep-alive-seconds:60}")
+    private int channelKeepAliveSeconds;
+
+    @Value("${app.websocket.heartbeat.server-ms:10000}")
+    private long serverHeartbeatMs;
+
+    @Value("${app.websocket.heartbeat.client-ms:10000}")
+    private long clientHeartbeatMs;
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${app.websocket.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${app.websocket.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${app.websocket.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${app.websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.broker.relay.single-writer:false}")
+    private boolean relaySingleWriter;
+
+    @Value("${app.websocket.broker.relay.channel-threads:4}")
+    private int relayChannelThreads;
+
+    /**
+     * The scheduler Spring creates for SockJS and the broker; lazy because it
+     * is itself defined by the broker configuration.
+     */
+    @Autowired
+    public void setHeartbeatScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler heartbeatScheduler) {
+        this.heartbeatScheduler = heartbeatScheduler;
+    }
+
+    /**
+     * Relay mode lets any number of nodes hold WebSocket sessions, but the
+     * queue still has a single writer node: salon lanes, delta versions, the
+     * snapshot cache and the in-memory booking indexes live in one JVM.
+     * Starting in relay mode therefore requires the operator to confirm that
+     * booking traffic is routed to the writer. The other nodes run with
+     * app.scheduler.enabled=false and app.websocket.broker.relay.writer-url
+     * set, so they hand queue reads, snapshots and SSE streams to the writer
+     * (see QueueWriterRedirectFilter) and only hold STOMP sessions.
+     */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple broker for pub/sub
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            if (!relaySingleWriter) {
+                throw new IllegalStateException("app.websocket.broker.mode=relay requires a single queue writer node;"
+                        + " route queue writes to one node and set app.websocket.broker.relay.single-writer=true");
+            }
+            // Relay to an external STOMP broker so every app node sees every broadcast
+            var relay = config.enableStompBrokerRelay(BROKER_PREFIXES)
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode)
+                    .setSystemHeartbeatSendInterval(serverHeartbeatMs)
+                    .setSystemHeartbeatReceiveInterval(clientHeartbeatMs)
+                    // Resolve /user destinations for sessions held by other nodes
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            // The relay blocks until each broadcast is written to the broker; keep that
+            // off request threads. Frames for one destination leave in publish order,
+            // different destinations in parallel.
+            ThreadPoolTaskExecutor relayExecutor = channelExecutor("broker");
+            relayExecutor.setCorePoolSize(relayChannelThreads);
+            relayExecutor.setMaxPoolSize(relayChannelThreads);
+            relayExecutor.setDaemon(true);
+            relayExecutor.initialize();
+            config.configureBrokerChannel().executor(new DestinationOrderedExecutor(relayExecutor));
+        } else {
+            // Enable simple broker for pub/sub (single node only)
+            config.enableSimpleBroker(BROKER_PREFIXES)
+                    // Notice clients that vanished without closing the socket (mobile networks)
+                    .setHeartbeatValue(new long[]{serverHeartbeatMs, clientHeartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler);
+        }
 
         // Prefix for messages from client to server
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Resolve the user of each session from its CONNECT frame (for /user destinations)
+        registration.interceptors(stompAuthChannelInterceptor);
+        // Own pool so a connection storm queues here instead of competing with HTTP threads
+        registration.taskExecutor(channelExecutor("inbound"))
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity)
+                .keepAliveSeconds(channelKeepAliveSeconds);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("outbound"))
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity)
+                .keepAliveSeconds(channelKeepAliveSeconds);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Per-session outbound buffer with latest-frame-wins for slow clients
+        registration.addDecoratorFactory(slowConsumerGuard)
+                .setSendTimeLimit(slowConsumerGuard.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(slowConsumerGuard.getBufferSizeLimit());
+    }
+
+    /**
+     * Executor for a client channel. Pool size, active and queued counts are
+     * published as executor.* metrics of the clientInboundChannelExecutor and
+     * clientOutboundChannelExecutor beans; this adds how long each message
+     * waited for a thread.
+     */
+    private ThreadPoolTaskExecutor channelExecutor(String channel) {
+        Timer queueWait = Timer.builder("websocket.channel.queue.wait")
+                .tag("channel", channel)
+                .description("Time STOMP messages waited for a client channel thread")
+                .register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        executor.setTaskDecorator(task -> {
+            long queuedAt = System.nanoTime();
+            return () -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            };
+        });
+        return executor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // WebSocket endpoint for clients to connect
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS(); // Fallback to SockJS for browsers that don't support WebSocket
+
+        // Raw WebSocket endpoint for binary (CBOR) queue frames; Tomcat negotiates
+        // permessage-deflate on it for clients that offer the extension
+        registry.addEndpoint("/ws-binary")
+                .setAllowedOriginPatterns("*");
     }
 }
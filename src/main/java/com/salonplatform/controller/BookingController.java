@@ -22,9 +22,11 @@ public class BookingController {
 
     private final BookingService bookingService;
     private final QueueService queueService;
+    private final IdempotencyService idempotencyService;
 
     /**
-     * Create online booking (Customer)
+     * Create online booking (Customer). A retry with the same
+     * Idempotency-Key returns the booking created by the first attempt.
      */
     @PostMapping("/online")
     @PreAuthorize("hasRole('CUSTOMER')")
@@ -32,25 +34,32 @@ public class BookingController {
             description = "Customer creates a booking and gets payment order")
     public ResponseEntity<ApiResponse<BookingResponse>> createOnlineBooking(
             @CurrentUser UserPrincipal currentUser,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody CreateBookingRequest request) {
 
-        BookingResponse response = bookingService.createOnlineBooking(
-                currentUser.getId(), request);
+        BookingResponse response = idempotencyService.execute(
+                "booking-online:" + currentUser.getId(), idempotencyKey, request, BookingResponse.class,
+                () -> bookingService.createOnlineBooking(currentUser.getId(), request));
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Booking created successfully", response));
     }
 
     /**
-     * Confirm booking after payment (Webhook/Frontend)
+     * Confirm booking after payment (Webhook/Frontend). A retry with the
+     * same Idempotency-Key succeeds again without re-running the confirmation.
      */
     @PostMapping("/{bookingId}/confirm")
     @Operation(summary = "Confirm booking after payment")
     public ResponseEntity<ApiResponse<Void>> confirmBooking(
             @PathVariable UUID bookingId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestParam String paymentId) {
 
-        bookingService.confirmBooking(bookingId, paymentId);
+        idempotencyService.execute("booking-confirm:" + bookingId, idempotencyKey, paymentId, Void.class, () -> {
+            bookingService.confirmBooking(bookingId, paymentId);
+            return null;
+        });
 
         return ResponseEntity.ok(ApiResponse.success("Booking confirmed"));
     }
@@ -9,9 +9,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.*;
 
 @RestController
@@ -21,6 +23,7 @@ import java.util.*;
 class QueueController {
 
     private final QueueService queueService;
+    private final QueueEventStreams queueEventStreams;
 
     /**
      * Get salon queue (Real-time)
@@ -35,6 +38,20 @@ class QueueController {
         return ResponseEntity.ok(ApiResponse.success("Queue retrieved", queue));
     }
 
+    /**
+     * Get versioned queue snapshot (WebSocket delta resync)
+     */
+    @GetMapping("/salon/{salonId}/snapshot")
+    @Operation(summary = "Get queue snapshot",
+            description = "Full queue with epoch and version, used to resync after a missed delta or a server restart")
+    public ResponseEntity<ApiResponse<QueueSnapshotResponse>> getSalonQueueSnapshot(
+            @PathVariable UUID salonId) {
+
+        QueueSnapshotResponse snapshot = queueService.getSalonQueueSnapshot(salonId);
+
+        return ResponseEntity.ok(ApiResponse.success("Queue snapshot", snapshot));
+    }
+
     /**
      * Get customer's queue position
      */
@@ -62,6 +79,34 @@ class QueueController {
         return ResponseEntity.ok(ApiResponse.success("Queue stats", stats));
     }
 
+    /**
+     * Apply several moves and skips at once (group arriving late, barber leaving)
+     */
+    @PostMapping("/salon/{salonId}/batch")
+    @PreAuthorize("hasAnyRole('BARBER', 'SALON_OWNER')")
+    @Operation(summary = "Batch queue operations",
+            description = "Apply moves and skips in order, in one transaction with a single queue update")
+    public ResponseEntity<ApiResponse<List<QueueResponse>>> applyQueueOperations(
+            @PathVariable UUID salonId,
+            @Valid @RequestBody QueueBatchRequest request) {
+
+        List<QueueResponse> queue = queueService.applyOperations(salonId, request.getOperations());
+
+        return ResponseEntity.ok(ApiResponse.success("Queue updated", queue));
+    }
+
+    /**
+     * Stream queue statistics (Dashboard, Server-Sent Events)
+     */
+    @GetMapping(value = "/salon/{salonId}/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('BARBER', 'SALON_OWNER')")
+    @Operation(summary = "Stream queue statistics",
+            description = "Sends a 'stats' event now and whenever the queue changes")
+    public SseEmitter streamQueueStats(@PathVariable UUID salonId) {
+        return queueEventStreams.open(salonId, QueueEventStreams.Stream.STATS,
+                () -> queueService.getQueueStats(salonId));
+    }
+
     /**
      * Handle late arrival - move to end
      */
@@ -9,9 +9,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.*;
 
 @RestController
@@ -21,6 +23,7 @@ import java.util.*;
 class SalonController {
 
     private final SalonService salonService;
+    private final QueueEventStreams queueEventStreams;
 
     /**
      * Find nearby salons
@@ -92,6 +95,17 @@ class SalonController {
         return ResponseEntity.ok(ApiResponse.success("Availability", availability));
     }
 
+    /**
+     * Stream availability (Server-Sent Events)
+     */
+    @GetMapping(value = "/{salonId}/available-slots/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream availability",
+            description = "Sends an 'availability' event now and whenever the queue changes")
+    public SseEmitter streamAvailableSlots(@PathVariable UUID salonId) {
+        return queueEventStreams.open(salonId, QueueEventStreams.Stream.AVAILABILITY,
+                () -> salonService.getAvailability(salonId));
+    }
+
     /**
      * Register salon (Owner)
      */
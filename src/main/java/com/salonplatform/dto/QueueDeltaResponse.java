@@ -0,0 +1,25 @@
+package com.salonplatform.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Incremental queue update sent on /topic/salon/{id}/queue.
+ * Clients apply it only if epoch and previousVersion match their local
+ * state, otherwise they resync from GET /api/v1/queue/salon/{id}/snapshot.
+ * Versions restart when the server does; the epoch tells the two apart.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueDeltaResponse {
+    private UUID salonId;
+    private Long epoch;                   // server start; versions restart with it
+    private Long version;
+    private Long previousVersion;
+    private List<QueueResponse> inserted; // new entries (or entries to replace by queueId)
+    private List<UUID> removed;           // queueIds that left the queue
+    private List<QueueEntryMove> moved;   // position / ETA / status changes
+}
@@ -0,0 +1,17 @@
+package com.salonplatform.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueEntryMove {
+    private UUID queueId;
+    private Integer position;
+    private Integer estimatedWaitMinutes;
+    private LocalDateTime estimatedStartTime;
+    private String status;
+}
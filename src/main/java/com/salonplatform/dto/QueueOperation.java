@@ -0,0 +1,22 @@
+package com.salonplatform.dto;
+
+import com.salonplatform.enums.QueueOperationType;
+import jakarta.validation.constraints.*;
+import lombok.*;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueOperation {
+    @NotNull(message = "Booking ID is required")
+    private UUID bookingId;
+
+    @NotNull(message = "Operation type is required")
+    private QueueOperationType type;
+
+    // Target position for MOVE (1 = front); past the end means last
+    @Min(value = 1, message = "Position must be at least 1")
+    private Integer position;
+}
@@ -0,0 +1,23 @@
+package com.salonplatform.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A customer's own place in a salon queue, sent on /user/queue/position
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueuePositionUpdate {
+    private UUID salonId;
+    private UUID queueId;
+    private Integer position;
+    private Integer estimatedWaitMinutes;
+    private LocalDateTime estimatedStartTime;
+    private String status;
+    private Long epoch;
+    private Long version;
+}
@@ -0,0 +1,16 @@
+package com.salonplatform.dto;
+
+import lombok.*;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSnapshotResponse {
+    private UUID salonId;
+    private Long epoch;
+    private Long version;
+    private List<QueueResponse> entries;
+}
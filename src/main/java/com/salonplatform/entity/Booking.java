@@ -52,6 +52,10 @@ public class Booking {
     @Column(name = "actual_end_time")
     private LocalDateTime actualEndTime;
 
+    // Appointment slot reserved for an online booking; estimatedStartTime drifts with the queue, this does not
+    @Column(name = "slot_start_time")
+    private LocalDateTime slotStartTime;
+
     @Column(name = "estimated_duration_minutes", nullable = false)
     private Integer estimatedDurationMinutes;
 
@@ -102,13 +106,13 @@ public class Booking {
         return false;
     }
 
-    public void markStarted() {
-        this.actualStartTime = LocalDateTime.now();
+    public void markStarted(LocalDateTime startedAt) {
+        this.actualStartTime = startedAt;
         this.status = BookingStatus.IN_PROGRESS;
     }
 
-    public void markCompleted() {
-        this.actualEndTime = LocalDateTime.now();
+    public void markCompleted(LocalDateTime completedAt) {
+        this.actualEndTime = completedAt;
         this.status = BookingStatus.COMPLETED;
     }
 }
\ No newline at end of file
@@ -8,7 +8,10 @@ import java.time.*;
 import java.util.*;
 
 @Entity
-@Table(name = "queue")
+@Table(name = "queue", indexes = {
+        @Index(name = "idx_queue_salon_status_position", columnList = "salon_id, status, position"),
+        @Index(name = "idx_queue_booking", columnList = "booking_id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Queue {
     @Id
@@ -36,6 +39,10 @@ public class Queue {
     @Column(nullable = false)
     private Integer position;
 
+    // Service order across the ONLINE/WALKIN lanes, see QueueLanePolicy
+    @Column(name = "lane_tag")
+    private Long laneTag;
+
     @Column(name = "estimated_wait_minutes")
     private Integer estimatedWaitMinutes;
 
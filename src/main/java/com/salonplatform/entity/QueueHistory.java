@@ -0,0 +1,74 @@
+package com.salonplatform.entity;
+
+import com.salonplatform.enums.QueueStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * Finished queue entries, moved out of the hot queue table.
+ */
+@Entity
+@Table(name = "queue_history", indexes = {
+        @Index(name = "idx_queue_history_booking", columnList = "booking_id"),
+        @Index(name = "idx_queue_history_salon_archived", columnList = "salon_id, archived_at")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class QueueHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "queue_id", nullable = false)
+    private UUID queueId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "salon_id", nullable = false)
+    private Salon salon;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "barber_id")
+    private Barber barber;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    private Booking booking;
+
+    @Column(name = "customer_name", nullable = false)
+    private String customerName;
+
+    @Column(name = "service_name", nullable = false)
+    private String serviceName;
+
+    @Column(nullable = false)
+    private Integer position;
+
+    @Column(name = "estimated_wait_minutes")
+    private Integer estimatedWaitMinutes;
+
+    @Enumerated(EnumType.STRING)
+    private QueueStatus status;
+
+    @Column(name = "added_at")
+    private LocalDateTime addedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public static QueueHistory from(Queue queue, QueueStatus finalStatus, LocalDateTime archivedAt) {
+        return QueueHistory.builder()
+                .queueId(queue.getId())
+                .salon(queue.getSalon())
+                .barber(queue.getBarber())
+                .booking(queue.getBooking())
+                .customerName(queue.getCustomerName())
+                .serviceName(queue.getServiceName())
+                .position(queue.getPosition())
+                .estimatedWaitMinutes(queue.getEstimatedWaitMinutes())
+                .status(finalStatus)
+                .addedAt(queue.getAddedAt())
+                .archivedAt(archivedAt)
+                .build();
+    }
+}
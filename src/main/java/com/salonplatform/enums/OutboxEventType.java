@@ -0,0 +1,3 @@
+package com.salonplatform.enums;
+
+public enum OutboxEventType { BOOKING_CONFIRMED, SERVICE_STARTED, SERVICE_COMPLETED, BOOKING_CANCELLED }
@@ -0,0 +1,3 @@
+package com.salonplatform.enums;
+
+public enum OutboxStatus { PENDING, DISPATCHED, FAILED }
@@ -0,0 +1,3 @@
+package com.salonplatform.enums;
+
+public enum QueueEventType { ADDED, IN_SERVICE, COMPLETED, SKIPPED, REORDERED }
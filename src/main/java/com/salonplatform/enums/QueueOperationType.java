@@ -0,0 +1,3 @@
+package com.salonplatform.enums;
+
+public enum QueueOperationType { MOVE, SKIP }
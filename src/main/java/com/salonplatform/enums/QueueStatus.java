@@ -1,4 +1,7 @@
 package com.salonplatform.enums;
 
-public enum QueueStatus { WAITING, IN_SERVICE, COMPLETED, SKIPPED }
+/**
+ * CANCELLED and NO_SHOW only appear in queue history, as the way an entry left the queue
+ */
+public enum QueueStatus { WAITING, IN_SERVICE, COMPLETED, SKIPPED, CANCELLED, NO_SHOW }
 
@@ -0,0 +1,22 @@
+package com.salonplatform.journal;
+
+import com.salonplatform.enums.QueueEventType;
+import lombok.*;
+import java.util.UUID;
+
+/**
+ * One queue transition as stored in the journal
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@ToString
+public class QueueEvent {
+    private final long sequence;
+    private final long timestampMillis;
+    private final QueueEventType type;
+    private final UUID salonId;
+    private final UUID queueId;
+    private final UUID bookingId;
+    private final int position;
+}
@@ -0,0 +1,393 @@
+package com.salonplatform.journal;
+
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.QueueEventType;
+import com.salonplatform.enums.QueueStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of queue transitions. Off by default; when enabled
+ * it needs an absolute directory.
+ *
+ * Events are fixed-size, CRC-checked records appended to memory-mapped
+ * segment files and forced to disk periodically. When a segment fills up,
+ * the live queue state ({@link QueueJournalState}) is written to a
+ * snapshot file and only the newest segments are kept, so the journal
+ * does not grow without bound. On startup the latest snapshot plus the
+ * events after it are replayed to restore that state and the sequence.
+ * {@link #replay(Path, Consumer)} reads the retained segments of a copied
+ * journal directory offline, e.g. into a benchmark.
+ */
+@Component
+@Slf4j
+public class QueueEventJournal {
+
+    static final int RECORD_BYTES = 8 + 8 + 1 + 16 + 16 + 16 + 4 + 4;
+    private static final int PAYLOAD_BYTES = RECORD_BYTES - 4;
+    private static final String SEGMENT_PREFIX = "queue-events-";
+    private static final String SNAPSHOT_PREFIX = "queue-snapshot-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final QueueEventType[] TYPES = QueueEventType.values();
+
+    private final QueueJournalState state = new QueueJournalState();
+
+    @Value("${app.queue.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.queue.journal.directory:}")
+    private String directory;
+
+    @Value("${app.queue.journal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${app.queue.journal.retained-segments:4}")
+    private int retainedSegments;
+
+    private Path dir;
+    private MappedByteBuffer segment;
+    private long nextSequence = 1;
+    private boolean dirty;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path journalDir = directory.isBlank() ? null : Paths.get(directory);
+        if (journalDir == null || !journalDir.isAbsolute()) {
+            throw new IllegalStateException(
+                    "app.queue.journal.directory must be an absolute path when the journal is enabled, got '"
+                            + directory + "'");
+        }
+        open(journalDir, segmentBytes, retainedSegments);
+    }
+
+    synchronized void open(Path journalDir, int bytesPerSegment, int segmentsToRetain) throws IOException {
+        this.dir = journalDir;
+        this.segmentBytes = bytesPerSegment - bytesPerSegment % RECORD_BYTES;
+        this.retainedSegments = Math.max(1, segmentsToRetain);
+        this.enabled = true;
+        Files.createDirectories(dir);
+
+        long started = System.nanoTime();
+        long recovered = 0;
+        Path snapshot = latestSnapshot(dir);
+        long snapshotSequence = 0;
+        if (snapshot != null) {
+            snapshotSequence = sequenceOf(snapshot, SNAPSHOT_PREFIX);
+            recovered += read(snapshot, state::apply);
+        }
+        long after = snapshotSequence;
+        for (Path path : segments(dir)) {
+            recovered += read(path, event -> {
+                if (event.getSequence() > after) {
+                    state.apply(event);
+                }
+            });
+        }
+        nextSequence = Math.max(state.getLastSequence(), snapshotSequence) + 1;
+
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            // Continue writing right after the last valid record
+            Path last = segments.get(segments.size() - 1);
+            segment = map(last);
+            segment.position(validBytes(segment));
+        }
+
+        log.info("Queue journal in {} recovered {} events ({} salons, {} live entries) in {} ms",
+                dir, recovered, state.salonIds().size(), state.entryCount(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Journal a transition of the given entry once the current
+     * transaction commits (immediately when there is none)
+     */
+    public void record(QueueEventType type, Queue queueEntry) {
+        if (!enabled) {
+            return;
+        }
+
+        QueueEvent event = QueueEvent.builder()
+                .type(type)
+                .salonId(queueEntry.getSalon().getId())
+                .queueId(queueEntry.getId())
+                .bookingId(queueEntry.getBooking().getId())
+                .position(queueEntry.getPosition() != null ? queueEntry.getPosition() : 0)
+                .build();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    append(event);
+                } catch (RuntimeException e) {
+                    // The database stays the source of truth; never fail a committed request
+                    log.error("Could not journal queue event {}", event, e);
+                }
+            }
+        });
+    }
+
+    synchronized QueueEvent append(QueueEvent event) {
+        if (segment.remaining() < RECORD_BYTES) {
+            roll();
+        }
+
+        QueueEvent stamped = event.toBuilder()
+                .sequence(nextSequence++)
+                .timestampMillis(event.getTimestampMillis() > 0
+                        ? event.getTimestampMillis() : System.currentTimeMillis())
+                .build();
+
+        write(segment, stamped);
+        dirty = true;
+        state.apply(stamped);
+        return stamped;
+    }
+
+    /**
+     * Force written records to disk
+     */
+    @Scheduled(fixedDelayString = "${app.queue.journal.fsync-interval-ms:1000}")
+    public synchronized void sync() {
+        if (enabled && dirty && segment != null) {
+            segment.force();
+            dirty = false;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sync();
+    }
+
+    public QueueJournalState getState() {
+        return state;
+    }
+
+    /**
+     * Read every valid event of the retained segments of a journal
+     * directory in order. Usable without a running application.
+     */
+    public static long replay(Path journalDir, Consumer<QueueEvent> consumer) throws IOException {
+        long count = 0;
+        for (Path path : segments(journalDir)) {
+            count += read(path, consumer);
+        }
+        return count;
+    }
+
+    private static long read(Path path, Consumer<QueueEvent> consumer) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            QueueEvent event;
+            while ((event = read(buffer)) != null) {
+                consumer.accept(event);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void roll() {
+        try {
+            if (segment != null) {
+                segment.force();
+                writeSnapshot();
+            }
+            Path path = dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+            segment = map(path);
+            prune();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not roll queue journal segment", e);
+        }
+    }
+
+    /**
+     * Write the live state as of the last appended event, so recovery
+     * does not need the segments before it
+     */
+    private void writeSnapshot() throws IOException {
+        long sequence = nextSequence - 1;
+        List<QueueEvent> events = new ArrayList<>();
+        for (UUID salonId : state.salonIds()) {
+            for (QueueJournalState.Entry entry : state.queue(salonId)) {
+                QueueEvent added = new QueueEvent(sequence, 0, QueueEventType.ADDED,
+                        salonId, entry.getQueueId(), entry.getBookingId(), entry.getPosition());
+                events.add(added);
+                if (entry.getStatus() == QueueStatus.IN_SERVICE) {
+                    events.add(added.toBuilder().type(QueueEventType.IN_SERVICE).build());
+                }
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(events.size() * RECORD_BYTES);
+        events.forEach(event -> write(buffer, event));
+        buffer.flip();
+
+        Path snapshot = dir.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SEGMENT_SUFFIX));
+        Path temporary = dir.resolve(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete segments beyond the retained count and all but the latest snapshot
+     */
+    private void prune() throws IOException {
+        List<Path> segments = segments(dir);
+        for (Path path : segments.subList(0, Math.max(0, segments.size() - retainedSegments))) {
+            Files.deleteIfExists(path);
+        }
+        Path latest = latestSnapshot(dir);
+        for (Path path : files(dir, SNAPSHOT_PREFIX)) {
+            if (!path.equals(latest)) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private static List<Path> segments(Path journalDir) throws IOException {
+        return files(journalDir, SEGMENT_PREFIX);
+    }
+
+    private static Path latestSnapshot(Path journalDir) throws IOException {
+        List<Path> snapshots = files(journalDir, SNAPSHOT_PREFIX);
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private static List<Path> files(Path journalDir, String prefix) throws IOException {
+        if (!Files.isDirectory(journalDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(journalDir)) {
+            // Zero-padded sequence in the name keeps lexical order == write order
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path path, String prefix) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int validBytes(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        while (read(view) != null) {
+            // advance to the first torn or empty record
+        }
+        int position = view.position();
+        return position - position % RECORD_BYTES;
+    }
+
+    private static void write(ByteBuffer buffer, QueueEvent event) {
+        int start = buffer.position();
+        buffer.putLong(event.getSequence());
+        buffer.putLong(event.getTimestampMillis());
+        buffer.put((byte) event.getType().ordinal());
+        putUuid(buffer, event.getSalonId());
+        putUuid(buffer, event.getQueueId());
+        putUuid(buffer, event.getBookingId());
+        buffer.putInt(event.getPosition());
+        buffer.putInt(crc(buffer, start));
+    }
+
+    /**
+     * Next valid event, or null at the end of the written region. The
+     * buffer is left after the last valid record.
+     */
+    private static QueueEvent read(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_BYTES) {
+            return null;
+        }
+        int start = buffer.position();
+        long sequence = buffer.getLong(start);
+        int storedCrc = buffer.getInt(start + PAYLOAD_BYTES);
+        if (sequence <= 0 || storedCrc != crc(buffer, start)) {
+            return null;
+        }
+
+        buffer.position(start + 8);
+        long timestamp = buffer.getLong();
+        int type = buffer.get();
+        UUID salonId = getUuid(buffer);
+        UUID queueId = getUuid(buffer);
+        UUID bookingId = getUuid(buffer);
+        int position = buffer.getInt();
+        buffer.getInt(); // crc
+
+        if (type < 0 || type >= TYPES.length) {
+            buffer.position(start);
+            return null;
+        }
+
+        return new QueueEvent(sequence, timestamp, TYPES[type], salonId, queueId, bookingId, position);
+    }
+
+    private static int crc(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(start + PAYLOAD_BYTES).position(start);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id != null ? id.getMostSignificantBits() : 0L);
+        buffer.putLong(id != null ? id.getLeastSignificantBits() : 0L);
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        long most = buffer.getLong();
+        long least = buffer.getLong();
+        return most == 0L && least == 0L ? null : new UUID(most, least);
+    }
+}
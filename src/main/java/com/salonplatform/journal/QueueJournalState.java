@@ -0,0 +1,71 @@
+package com.salonplatform.journal;
+
+import com.salonplatform.enums.QueueEventType;
+import com.salonplatform.enums.QueueStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live queue state rebuilt purely from journal events: per salon, the
+ * entries still in the queue with their position and status.
+ */
+public class QueueJournalState {
+
+    private final Map<UUID, Map<UUID, Entry>> salons = new ConcurrentHashMap<>();
+    private long lastSequence;
+
+    public synchronized void apply(QueueEvent event) {
+        Map<UUID, Entry> queue = salons.computeIfAbsent(event.getSalonId(), id -> new HashMap<>());
+
+        switch (event.getType()) {
+            case ADDED, SKIPPED, REORDERED -> queue.merge(event.getQueueId(),
+                    new Entry(event.getQueueId(), event.getBookingId(), event.getPosition(), QueueStatus.WAITING),
+                    (previous, next) -> new Entry(previous.getQueueId(), previous.getBookingId(),
+                            next.getPosition(), event.getType() == QueueEventType.REORDERED
+                                    ? previous.getStatus() : QueueStatus.WAITING));
+            case IN_SERVICE -> queue.computeIfPresent(event.getQueueId(), (id, previous) ->
+                    new Entry(id, previous.getBookingId(), previous.getPosition(), QueueStatus.IN_SERVICE));
+            case COMPLETED -> queue.remove(event.getQueueId());
+        }
+
+        if (queue.isEmpty()) {
+            salons.remove(event.getSalonId());
+        }
+        lastSequence = Math.max(lastSequence, event.getSequence());
+    }
+
+    /**
+     * Entries of a salon, in-service first, then waiting by position
+     */
+    public synchronized List<Entry> queue(UUID salonId) {
+        List<Entry> entries = new ArrayList<>(salons.getOrDefault(salonId, Map.of()).values());
+        entries.sort(Comparator
+                .comparing((Entry e) -> e.getStatus() != QueueStatus.IN_SERVICE)
+                .thenComparingInt(Entry::getPosition));
+        return entries;
+    }
+
+    public synchronized Set<UUID> salonIds() {
+        return new HashSet<>(salons.keySet());
+    }
+
+    public synchronized int entryCount() {
+        return salons.values().stream().mapToInt(Map::size).sum();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final UUID queueId;
+        private final UUID bookingId;
+        private final int position;
+        private final QueueStatus status;
+    }
+}
@@ -2,6 +2,7 @@ package com.salonplatform.repository;
 
 import com.salonplatform.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
@@ -11,10 +12,16 @@ import java.util.*;
 public interface BarberRepository extends JpaRepository<Barber, UUID> {
     List<Barber> findBySalonId(UUID salonId);
     List<Barber> findBySalonIdAndIsAvailableTrue(UUID salonId);
+    long countBySalonIdAndIsAvailableTrue(UUID salonId);
+    List<Barber> findBySalonIdInAndIsAvailableTrue(Collection<UUID> salonIds);
     Optional<Barber> findByUserId(UUID userId);
 
     @Query("SELECT b FROM Barber b WHERE b.salon.id = :salonId " +
             "AND b.isAvailable = true " +
             "ORDER BY b.totalServices ASC")
     List<Barber> findAvailableBarbersOrderByLoad(@Param("salonId") UUID salonId);
+
+    @Modifying
+    @Query("UPDATE Barber b SET b.totalServices = b.totalServices + 1 WHERE b.id = :barberId")
+    int incrementTotalServices(@Param("barberId") UUID barberId);
 }
@@ -1,8 +1,14 @@
 package com.salonplatform.repository;
 import com.salonplatform.entity.*;
 import com.salonplatform.enums.BookingStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
 
@@ -40,8 +46,71 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
             "AND b.estimatedStartTime >= CURRENT_TIMESTAMP")
     long countOnlineBookingsToday(@Param("salonId") UUID salonId);
 
+    /**
+     * Online bookings of a day still holding online capacity: pending or
+     * confirmed and not started, including ones past their estimated start
+     */
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.salon.id = :salonId " +
+            "AND b.bookingType = 'ONLINE' " +
+            "AND b.status IN ('PENDING', 'CONFIRMED') " +
+            "AND b.actualStartTime IS NULL " +
+            "AND b.estimatedStartTime >= :dayStart AND b.estimatedStartTime < :dayEnd")
+    long countOutstandingOnlineBookings(@Param("salonId") UUID salonId,
+                                        @Param("dayStart") LocalDateTime dayStart,
+                                        @Param("dayEnd") LocalDateTime dayEnd);
+
+    /**
+     * Online bookings of a salon assigned a barber and still awaiting
+     * payment, from the given time on
+     */
+    @Query("SELECT b FROM Booking b WHERE b.salon.id = :salonId " +
+            "AND b.bookingType = 'ONLINE' " +
+            "AND b.status = 'PENDING' " +
+            "AND b.barber IS NOT NULL " +
+            "AND b.estimatedStartTime >= :from")
+    List<Booking> findPendingOnlineBookings(@Param("salonId") UUID salonId,
+                                            @Param("from") LocalDateTime from);
+
     @Query("SELECT b FROM Booking b WHERE b.status = 'CONFIRMED' " +
             "AND b.estimatedStartTime < :cutoffTime " +
             "AND b.actualStartTime IS NULL")
     List<Booking> findOverdueBookings(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    /**
+     * Salons with overdue online bookings awaiting no-show processing
+     */
+    @Query("SELECT DISTINCT b.salon.id FROM Booking b WHERE b.status = 'CONFIRMED' " +
+            "AND b.bookingType = 'ONLINE' " +
+            "AND b.estimatedStartTime < :cutoffTime " +
+            "AND b.actualStartTime IS NULL")
+    List<UUID> findSalonIdsWithOverdueOnlineBookings(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    /**
+     * Lock a chunk of one salon's overdue online bookings for no-show
+     * processing, skipping rows another node or a starting service holds
+     * (SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT b FROM Booking b WHERE b.salon.id = :salonId " +
+            "AND b.status = 'CONFIRMED' " +
+            "AND b.bookingType = 'ONLINE' " +
+            "AND b.estimatedStartTime < :cutoffTime " +
+            "AND b.actualStartTime IS NULL " +
+            "ORDER BY b.estimatedStartTime ASC")
+    List<Booking> lockOverdueOnlineBookings(@Param("salonId") UUID salonId,
+                                            @Param("cutoffTime") LocalDateTime cutoffTime,
+                                            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'NO_SHOW' WHERE b.id IN :bookingIds")
+    int markNoShow(@Param("bookingIds") Collection<UUID> bookingIds);
+
+    @Query("SELECT b FROM Booking b WHERE b.barber.id = :barberId " +
+            "AND b.slotStartTime >= :from AND b.slotStartTime < :to " +
+            "AND b.status IN :statuses")
+    List<Booking> findSlotHolders(@Param("barberId") UUID barberId,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("statuses") Collection<BookingStatus> statuses);
 }
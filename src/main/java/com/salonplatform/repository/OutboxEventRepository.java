@@ -0,0 +1,36 @@
+package com.salonplatform.repository;
+
+import com.salonplatform.entity.OutboxEvent;
+import com.salonplatform.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.createdAt ASC")
+    List<UUID> findDueIds(@Param("status") OutboxStatus status,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Lock a pending event for dispatch; empty if another node holds it
+     * (SKIP LOCKED) or it is no longer pending
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id = :id AND e.status = :status")
+    Optional<OutboxEvent> lockByIdAndStatus(@Param("id") UUID id, @Param("status") OutboxStatus status);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.dispatchedAt < :before")
+    int deleteByStatusAndDispatchedAtBefore(@Param("status") OutboxStatus status,
+                                            @Param("before") LocalDateTime before);
+}
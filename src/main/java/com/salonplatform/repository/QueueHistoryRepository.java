@@ -0,0 +1,25 @@
+package com.salonplatform.repository;
+
+import com.salonplatform.entity.QueueHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+public interface QueueHistoryRepository extends JpaRepository<QueueHistory, UUID> {
+    Optional<QueueHistory> findFirstByBookingIdOrderByArchivedAtDesc(UUID bookingId);
+
+    @Modifying
+    @Query(value = "INSERT INTO queue_history (id, queue_id, salon_id, barber_id, booking_id, " +
+            "customer_name, service_name, position, estimated_wait_minutes, status, added_at, archived_at) " +
+            "SELECT gen_random_uuid(), q.id, q.salon_id, q.barber_id, q.booking_id, " +
+            "q.customer_name, q.service_name, q.position, q.estimated_wait_minutes, q.status, q.added_at, :archivedAt " +
+            "FROM queue q WHERE q.id IN (:queueIds)", nativeQuery = true)
+    int copyFromQueue(@Param("queueIds") Collection<UUID> queueIds,
+                      @Param("archivedAt") LocalDateTime archivedAt);
+}
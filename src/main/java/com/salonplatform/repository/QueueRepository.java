@@ -2,7 +2,9 @@ package com.salonplatform.repository;
 
 import com.salonplatform.entity.Queue;
 import com.salonplatform.enums.QueueStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
@@ -12,14 +14,42 @@ import java.util.*;
 @Repository
 public interface QueueRepository extends JpaRepository<Queue, UUID> {
     List<Queue> findBySalonIdAndStatusOrderByPositionAsc(UUID salonId, QueueStatus status);
-    List<Queue> findBySalonIdOrderByPositionAsc(UUID salonId);
     Optional<Queue> findBySalonIdAndPosition(UUID salonId, Integer position);
+    List<Queue> findBySalonIdAndStatusAndPositionGreaterThanEqualOrderByPositionAsc(
+            UUID salonId, QueueStatus status, Integer position);
     Optional<Queue> findByBookingId(UUID bookingId);
+    List<Queue> findByBookingIdIn(Collection<UUID> bookingIds);
 
-    @Query("SELECT MAX(q.position) FROM Queue q WHERE q.salon.id = :salonId")
+    @Query("SELECT q.salon.id FROM Queue q WHERE q.booking.id = :bookingId")
+    Optional<UUID> findSalonIdByBookingId(@Param("bookingId") UUID bookingId);
+
+    @Query("SELECT MAX(q.position) FROM Queue q WHERE q.salon.id = :salonId " +
+            "AND q.status = 'WAITING'")
     Optional<Integer> findMaxPositionBySalon(@Param("salonId") UUID salonId);
 
+    @Query("SELECT q FROM Queue q JOIN FETCH q.booking LEFT JOIN FETCH q.barber " +
+            "WHERE q.salon.id = :salonId AND q.status IN :statuses ORDER BY q.position ASC")
+    List<Queue> findActiveWithBooking(@Param("salonId") UUID salonId,
+                                      @Param("statuses") Collection<QueueStatus> statuses);
+
+    @Query("SELECT q FROM Queue q JOIN FETCH q.booking LEFT JOIN FETCH q.barber " +
+            "WHERE q.status IN :statuses ORDER BY q.position ASC")
+    List<Queue> findAllActiveWithBooking(@Param("statuses") Collection<QueueStatus> statuses);
+
+    @Query("SELECT DISTINCT q.salon.id FROM Queue q " +
+            "WHERE q.booking.customer.id = :customerId AND q.status IN :statuses")
+    List<UUID> findSalonIdsByCustomer(@Param("customerId") UUID customerId,
+                                      @Param("statuses") Collection<QueueStatus> statuses);
+
     @Query("SELECT COUNT(q) FROM Queue q WHERE q.salon.id = :salonId " +
             "AND q.status = 'WAITING'")
     long countWaitingCustomers(@Param("salonId") UUID salonId);
+
+    @Query("SELECT q.id FROM Queue q WHERE q.status IN :statuses")
+    List<UUID> findIdsByStatusIn(@Param("statuses") Collection<QueueStatus> statuses,
+                                 Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Queue q WHERE q.id IN :queueIds")
+    int deleteByIdIn(@Param("queueIds") Collection<UUID> queueIds);
 }
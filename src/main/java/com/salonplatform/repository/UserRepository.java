@@ -3,6 +3,9 @@ package com.salonplatform.repository;
 import com.salonplatform.entity.*;
 import com.salonplatform.enums.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.*;
 
@@ -14,4 +17,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByPhone(String phone);
     boolean existsByEmail(String email);
     List<User> findByRole(UserRole role);
+
+    @Modifying
+    @Query("UPDATE User u SET u.totalBookings = u.totalBookings + 1 WHERE u.id = :userId")
+    int incrementTotalBookings(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.noShowCount = u.noShowCount + :count WHERE u.id IN :userIds")
+    int incrementNoShowCount(@Param("userIds") Collection<UUID> userIds, @Param("count") int count);
 }
\ No newline at end of file
@@ -2,18 +2,27 @@ package com.salonplatform.scheduler;
 
 
 import com.salonplatform.service.BookingService;
+import com.salonplatform.service.QueueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 // ============== BookingScheduler.java ==============
+// Changes queues and refreshes the writer's queue caches, so it runs only on the queue writer node
+// (see WebSocketConfig relay mode)
 @Component
+@ConditionalOnProperty(name = "app.scheduler.enabled", havingValue = "true", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class BookingScheduler {
 
     private final BookingService bookingService;
+    private final QueueService queueService;
+
+    private static final int QUEUE_ARCHIVE_CHUNK = 500;
+    private static final int OVERDUE_BOOKING_CHUNK = 200;
 
     /**
      * Auto-cancel overdue bookings every 5 minutes
@@ -24,8 +33,14 @@ public class BookingScheduler {
         log.info("Starting scheduled task: Process overdue bookings");
 
         try {
-            bookingService.processOverdueBookings();
-            log.info("Completed: Process overdue bookings");
+            // One transaction per salon and chunk, so a backlog after an outage cannot time out the run
+            int processed;
+            int total = 0;
+            do {
+                processed = bookingService.processOverdueBookings(OVERDUE_BOOKING_CHUNK);
+                total += processed;
+            } while (processed > 0);
+            log.info("Completed: Process overdue bookings ({} marked no-show)", total);
         } catch (Exception e) {
             log.error("Error processing overdue bookings", e);
         }
@@ -40,8 +55,13 @@ public class BookingScheduler {
         log.info("Starting scheduled task: Cleanup old bookings");
 
         try {
-            // TODO: Implement cleanup logic if needed
-            // Archive bookings older than 6 months, etc.
+            // Sweep finished entries still in the hot queue table
+            int archived;
+            do {
+                archived = queueService.archiveTerminalEntries(QUEUE_ARCHIVE_CHUNK);
+            } while (archived == QUEUE_ARCHIVE_CHUNK);
+
+            // TODO: Archive bookings older than 6 months, etc.
             log.info("Completed: Cleanup old bookings");
         } catch (Exception e) {
             log.error("Error cleaning up old bookings", e);
@@ -64,17 +84,33 @@ public class BookingScheduler {
         }
     }
 
+    /**
+     * Refresh queue ETAs from elapsed service time
+     * Runs: Every minute (app.queue.eta-refresh-interval-ms)
+     * Pushes only salons where an ETA drifted past the threshold
+     */
+    @Scheduled(fixedDelayString = "${app.queue.eta-refresh-interval-ms:60000}")
+    public void refreshQueueEstimates() {
+        log.debug("Refreshing queue ETAs");
+
+        try {
+            queueService.refreshEstimates();
+        } catch (Exception e) {
+            log.error("Error refreshing queue ETAs", e);
+        }
+    }
+
     /**
      * Update queue statistics
      * Runs: Every minute
+     * Queue events keep the cache current; this catches anything they missed
      */
     @Scheduled(fixedRate = 60000) // 1 minute
     public void updateQueueStatistics() {
         log.debug("Updating queue statistics");
 
         try {
-            // TODO: Calculate and cache queue statistics for faster API responses
-            // This is optional - for performance optimization
+            queueService.refreshQueueCaches();
         } catch (Exception e) {
             log.error("Error updating queue statistics", e);
         }
@@ -0,0 +1,70 @@
+package com.salonplatform.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.UUID;
+
+/**
+ * Authenticates STOMP sessions from the Authorization header of the CONNECT
+ * frame (browsers cannot set headers on the WebSocket handshake). The
+ * session user is named by user id, which /user destinations resolve
+ * against. Sessions without a valid token stay anonymous.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService customUserDetailsService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        // A session authenticated on the handshake is named by phone; use the id instead
+        if (accessor.getUser() instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            accessor.setUser(new UsernamePasswordAuthenticationToken(
+                    principal.getId().toString(), null, authentication.getAuthorities()));
+        }
+
+        try {
+            String jwt = getJwt(accessor.getFirstNativeHeader("Authorization"));
+
+            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
+                String userId = tokenProvider.getUserIdFromToken(jwt);
+                UserDetails userDetails = customUserDetailsService.loadUserById(UUID.fromString(userId));
+
+                accessor.setUser(new UsernamePasswordAuthenticationToken(
+                        userId, null, userDetails.getAuthorities()));
+            }
+        } catch (Exception ex) {
+            log.error("Could not authenticate STOMP session", ex);
+        }
+
+        return message;
+    }
+
+    private String getJwt(String bearerToken) {
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
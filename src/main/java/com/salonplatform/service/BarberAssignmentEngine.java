@@ -0,0 +1,343 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Barber;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.enums.ServiceCategory;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import com.salonplatform.repository.QueueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns online bookings to the barber who frees up first, from each
+ * barber's live committed work: the rest of the service in progress, the
+ * waiting entries assigned to them, and online bookings assigned to them
+ * that are still awaiting payment.
+ *
+ * Per salon, barbers are kept ordered by the minute they become free, so
+ * picking one is O(log b). Queue events (entry added, service started,
+ * entry left) adjust that minute in place. Optionally a barber whose
+ * specialization names the service's category is preferred when they are
+ * free at most the configured weight later than the earliest barber.
+ *
+ * State is loaded from the queue and pending online bookings on first use, reloaded after the rebuild
+ * interval (availability changes, other nodes' bookings), and dropped when
+ * a transaction that changed it rolls back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BarberAssignmentEngine {
+
+    private static final Comparator<BarberLoad> BY_FREE_AT =
+            Comparator.<BarberLoad>comparingLong(load -> load.freeAt).thenComparing(load -> load.barberId);
+
+    private final Map<UUID, SalonLoad> salons = new ConcurrentHashMap<>();
+    private final QueueRepository queueRepository;
+    private final BookingRepository bookingRepository;
+    private final BarberRepository barberRepository;
+    private final ServiceDurationEstimator durationEstimator;
+    private final Clock clock;
+
+    @Value("${app.barber-assignment.specialization-weight-minutes:10}")
+    private int specializationWeightMinutes;
+
+    @Value("${app.barber-assignment.rebuild-interval-ms:300000}")
+    private long rebuildIntervalMs;
+
+    /**
+     * Available barber who can start a new booking of the given category
+     * earliest, or empty if the salon has no available barber
+     */
+    public Optional<UUID> assign(UUID salonId, ServiceCategory category) {
+        SalonLoad load = current(salonId);
+
+        synchronized (load) {
+            if (load.byFreeAt.isEmpty()) {
+                return Optional.empty();
+            }
+            BarberLoad chosen = load.byFreeAt.first();
+
+            TreeSet<BarberLoad> specialists = category != null ? load.specialists.get(category) : null;
+            if (specializationWeightMinutes > 0 && specialists != null && !specialists.isEmpty()) {
+                long now = nowMinutes();
+                BarberLoad specialist = specialists.first();
+                if (Math.max(specialist.freeAt, now) - specializationWeightMinutes
+                        <= Math.max(chosen.freeAt, now)) {
+                    chosen = specialist;
+                }
+            }
+            return Optional.of(chosen.barberId);
+        }
+    }
+
+    /**
+     * An online booking was assigned its barber and awaits payment. Its
+     * duration is committed right away, so bookings assigned before it is
+     * confirmed see the barber as busy; confirming it does not count it
+     * again.
+     */
+    public void booked(Booking booking) {
+        if (booking.getBarber() == null) {
+            return;
+        }
+        commit(loaded(booking.getSalon().getId()), booking, booking.getBarber().getId());
+    }
+
+    /**
+     * An entry joined the queue; its barber's work grows by its duration
+     */
+    public void queued(Queue entry) {
+        if (entry.getBarber() == null) {
+            return;
+        }
+        commit(loaded(entry.getSalon().getId()), entry.getBooking(), entry.getBarber().getId());
+    }
+
+    /**
+     * Service started: the barber is busy until at least its expected end
+     */
+    public void started(Queue entry) {
+        SalonLoad load = loaded(entry.getSalon().getId());
+        if (load == null) {
+            return;
+        }
+
+        synchronized (load) {
+            UUID bookingId = entry.getBooking().getId();
+            Commitment waiting = load.commitments.get(bookingId);
+            if (waiting == null) {
+                return;
+            }
+            BarberLoad barber = load.barbers.get(waiting.barberId());
+            long endsAt = nowMinutes() + waiting.minutes();
+            load.commitments.put(bookingId, new Commitment(waiting.barberId(), waiting.minutes(), endsAt));
+            if (barber != null) {
+                load.move(barber, Math.max(barber.freeAt, endsAt));
+            }
+        }
+    }
+
+    /**
+     * Entry left the queue (completed, cancelled, no-show); time it would
+     * still have taken is given back
+     */
+    public void finished(Queue entry) {
+        release(entry.getSalon().getId(), entry.getBooking().getId());
+    }
+
+    /**
+     * Booking cancelled before it joined the queue; its pending commitment
+     * is given back
+     */
+    public void cancelled(Booking booking) {
+        release(booking.getSalon().getId(), booking.getId());
+    }
+
+    private void commit(SalonLoad load, Booking booking, UUID barberId) {
+        if (load == null) {
+            return;
+        }
+
+        synchronized (load) {
+            BarberLoad barber = load.barbers.get(barberId);
+            if (barber == null || load.commitments.containsKey(booking.getId())) {
+                return;
+            }
+            int minutes = duration(booking, barberId);
+            load.commitments.put(booking.getId(), new Commitment(barber.barberId, minutes, 0));
+            load.move(barber, Math.max(barber.freeAt, nowMinutes()) + minutes);
+        }
+    }
+
+    private void release(UUID salonId, UUID bookingId) {
+        SalonLoad load = loaded(salonId);
+        if (load == null) {
+            return;
+        }
+
+        synchronized (load) {
+            Commitment commitment = load.commitments.remove(bookingId);
+            BarberLoad barber = commitment != null ? load.barbers.get(commitment.barberId()) : null;
+            if (barber == null) {
+                return;
+            }
+            long unused = commitment.endsAt() == 0
+                    ? commitment.minutes()
+                    : Math.max(0, commitment.endsAt() - nowMinutes());
+            load.move(barber, barber.freeAt - unused);
+        }
+    }
+
+    private SalonLoad current(UUID salonId) {
+        SalonLoad load = salons.get(salonId);
+        if (load == null || clock.millis() - load.builtAt > rebuildIntervalMs) {
+            load = rebuild(salonId);
+        }
+        return load;
+    }
+
+    private SalonLoad loaded(UUID salonId) {
+        SalonLoad load = salons.get(salonId);
+        if (load != null) {
+            dropOnRollback(salonId);
+        }
+        return load;
+    }
+
+    /**
+     * Load from the active queue: in-service entries first, then waiting
+     * entries in queue order, as WaitTimeEstimator replays them, then
+     * today's online bookings still awaiting payment
+     */
+    private SalonLoad rebuild(UUID salonId) {
+        SalonLoad load = new SalonLoad(clock.millis());
+        long now = nowMinutes();
+
+        for (Barber barber : barberRepository.findBySalonIdAndIsAvailableTrue(salonId)) {
+            BarberLoad barberLoad = new BarberLoad(barber.getId(), specializations(barber.getSpecialization()), now);
+            load.barbers.put(barber.getId(), barberLoad);
+            load.index(barberLoad);
+        }
+
+        List<Queue> active = queueRepository.findActiveWithBooking(salonId, WaitTimeEstimator.ACTIVE_STATUSES);
+        for (QueueStatus pass : List.of(QueueStatus.IN_SERVICE, QueueStatus.WAITING)) {
+            for (Queue entry : active) {
+                BarberLoad barber = entry.getBarber() != null ? load.barbers.get(entry.getBarber().getId()) : null;
+                if (entry.getStatus() != pass || barber == null) {
+                    continue;
+                }
+                int minutes = duration(entry.getBooking(), barber.barberId);
+                long endsAt = 0;
+                if (pass == QueueStatus.IN_SERVICE) {
+                    Booking booking = entry.getBooking();
+                    endsAt = (booking.getActualStartTime() != null
+                            ? toMinutes(booking.getActualStartTime()) : now) + minutes;
+                    load.move(barber, Math.max(barber.freeAt, endsAt));
+                } else {
+                    load.move(barber, Math.max(barber.freeAt, now) + minutes);
+                }
+                load.commitments.put(entry.getBooking().getId(), new Commitment(barber.barberId, minutes, endsAt));
+            }
+        }
+
+        LocalDateTime dayStart = LocalDateTime.now(clock).toLocalDate().atStartOfDay();
+        for (Booking booking : bookingRepository.findPendingOnlineBookings(salonId, dayStart)) {
+            BarberLoad barber = booking.getBarber() != null ? load.barbers.get(booking.getBarber().getId()) : null;
+            if (barber == null || load.commitments.containsKey(booking.getId())) {
+                continue;
+            }
+            int minutes = duration(booking, barber.barberId);
+            load.move(barber, Math.max(barber.freeAt, now) + minutes);
+            load.commitments.put(booking.getId(), new Commitment(barber.barberId, minutes, 0));
+        }
+
+        salons.put(salonId, load);
+        log.debug("Loaded barber workload for salon {} ({} barbers)", salonId, load.barbers.size());
+        return load;
+    }
+
+    private void dropOnRollback(UUID salonId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    salons.remove(salonId);
+                }
+            }
+        });
+    }
+
+    private int duration(Booking booking, UUID barberId) {
+        int staticMinutes = booking.getEstimatedDurationMinutes() != null
+                ? booking.getEstimatedDurationMinutes() : 0;
+        UUID serviceId = booking.getService() != null ? booking.getService().getId() : null;
+        return durationEstimator.estimateMinutes(serviceId, barberId, staticMinutes);
+    }
+
+    /**
+     * Categories named in a barber's free-text specialization, e.g. "Haircut, beard"
+     */
+    static Set<ServiceCategory> specializations(String specialization) {
+        Set<ServiceCategory> categories = EnumSet.noneOf(ServiceCategory.class);
+        if (specialization == null) {
+            return categories;
+        }
+        String text = specialization.toUpperCase(Locale.ROOT);
+        for (ServiceCategory category : ServiceCategory.values()) {
+            if (text.contains(category.name())) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    private long nowMinutes() {
+        return clock.millis() / 60_000;
+    }
+
+    private long toMinutes(LocalDateTime time) {
+        return time.atZone(clock.getZone())
+                .toInstant().toEpochMilli() / 60_000;
+    }
+
+    /** Minutes a booking holds its barber for; endsAt is 0 while it waits */
+    private record Commitment(UUID barberId, int minutes, long endsAt) {
+    }
+
+    private static final class BarberLoad {
+        final UUID barberId;
+        final Set<ServiceCategory> specializations;
+        long freeAt;
+
+        BarberLoad(UUID barberId, Set<ServiceCategory> specializations, long freeAt) {
+            this.barberId = barberId;
+            this.specializations = specializations;
+            this.freeAt = freeAt;
+        }
+    }
+
+    private static final class SalonLoad {
+        final long builtAt;
+        final Map<UUID, BarberLoad> barbers = new HashMap<>();
+        final Map<UUID, Commitment> commitments = new HashMap<>();
+        final TreeSet<BarberLoad> byFreeAt = new TreeSet<>(BY_FREE_AT);
+        final Map<ServiceCategory, TreeSet<BarberLoad>> specialists = new EnumMap<>(ServiceCategory.class);
+
+        SalonLoad(long builtAt) {
+            this.builtAt = builtAt;
+        }
+
+        void index(BarberLoad barber) {
+            byFreeAt.add(barber);
+            for (ServiceCategory category : barber.specializations) {
+                specialists.computeIfAbsent(category, c -> new TreeSet<>(BY_FREE_AT)).add(barber);
+            }
+        }
+
+        /** Re-key a barber under a new free minute */
+        void move(BarberLoad barber, long freeAt) {
+            byFreeAt.remove(barber);
+            for (ServiceCategory category : barber.specializations) {
+                specialists.get(category).remove(barber);
+            }
+            barber.freeAt = freeAt;
+            index(barber);
+        }
+    }
+}
@@ -9,9 +9,12 @@ import com.salonplatform.exception.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -28,8 +31,15 @@ public class BookingService {
     private final BarberRepository barberRepository;
     private final QueueRepository queueRepository;
    // private final PaymentService paymentService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final QueueService queueService;
+    private final BarberAssignmentEngine barberAssignmentEngine;
+    private final SlotCalendar slotCalendar;
+    private final OnlineCapacityLimiter onlineCapacityLimiter;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final ServiceDurationEstimator durationEstimator;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
 
     @Value("${app.booking.grace-period-minutes}")
     private int gracePeriodMinutes;
@@ -68,15 +78,25 @@ public class BookingService {
             throw new BusinessException("This service is currently unavailable");
         }
 
-        // Check online booking capacity
-        long onlineBookingsCount = bookingRepository.countOnlineBookingsToday(salon.getId());
-        // Logic to limit online bookings based on salon settings
+        // Hold one unit of the salon's online share (the rest is kept for walk-ins)
+        if (!onlineCapacityLimiter.tryAcquire(salon)) {
+            throw new BusinessException("Online bookings for this salon are full, please walk in or try later");
+        }
 
         // Calculate estimated start time based on current queue
         LocalDateTime estimatedStartTime = calculateNextAvailableSlot(salon.getId());
 
-        // Assign barber (load balancing)
-        Barber assignedBarber = assignBarber(salon.getId());
+        // Assign barber (live queue load)
+        Barber assignedBarber = assignBarber(salon.getId(), service);
+
+        // Reserve the barber's first free slot from then on
+        LocalDateTime slotStartTime = null;
+        if (assignedBarber != null) {
+            slotStartTime = slotCalendar.reserve(assignedBarber.getId(), estimatedStartTime,
+                            salon.getClosingTime(), service.getDurationMinutes())
+                    .orElseThrow(() -> new BusinessException("No free slot left today for this service"));
+            estimatedStartTime = slotStartTime;
+        }
 
         // Create booking
         Booking booking = Booking.builder()
@@ -87,6 +107,7 @@ public class BookingService {
                 .bookingType(BookingType.ONLINE)
                 .status(BookingStatus.PENDING)
                 .estimatedStartTime(estimatedStartTime)
+                .slotStartTime(slotStartTime)
                 .estimatedDurationMinutes(service.getDurationMinutes())
                 .amount(service.getPrice())
                 .paymentStatus(PaymentStatus.PENDING)
@@ -95,6 +116,9 @@ public class BookingService {
 
         booking = bookingRepository.save(booking);
 
+        // The barber's load counts this booking from now on, not only once it is paid
+        barberAssignmentEngine.booked(booking);
+
 //         Create payment order
 //        PaymentOrderResponse paymentOrder = paymentService.createPaymentOrder(
 //                booking.getId(),
@@ -144,12 +168,8 @@ public class BookingService {
         // Add to queue
         queueService.addToQueue(booking);
 
-        // Update customer stats
-        booking.getCustomer().incrementTotalBookings();
-        userRepository.save(booking.getCustomer());
-
-        // Send confirmation notification
-        notificationService.sendBookingConfirmation(booking);
+        // Customer stats and confirmation notification are applied after commit
+        outboxService.record(OutboxEventType.BOOKING_CONFIRMED, booking);
 
         log.info("Booking confirmed and added to queue: {}", bookingId);
     }
@@ -222,14 +242,15 @@ public class BookingService {
             throw new BusinessException("Booking must be confirmed to start service");
         }
 
-        booking.markStarted();
+        onlineCapacityLimiter.release(booking);
+        booking.markStarted(LocalDateTime.now(clock));
         bookingRepository.save(booking);
 
         // Update queue status
         queueService.markInService(booking.getId());
 
-        // Notify customer (if next in queue)
-        notificationService.sendServiceStarted(booking);
+        // Service-started notification is sent after commit
+        outboxService.record(OutboxEventType.SERVICE_STARTED, booking);
 
         log.info("Service started for booking: {}", bookingId);
     }
@@ -248,24 +269,24 @@ public class BookingService {
             throw new BusinessException("Service must be in progress to complete");
         }
 
-        booking.markCompleted();
+        booking.markCompleted(LocalDateTime.now(clock));
         bookingRepository.save(booking);
 
-        // Remove from queue
-        queueService.removeFromQueue(booking.getId());
-
-        // Update barber stats
-        Barber barber = booking.getBarber();
-        if (barber != null) {
-            barber.setTotalServices(barber.getTotalServices() + 1);
-            barberRepository.save(barber);
+        // Learn how long this service really takes
+        if (booking.getActualStartTime() != null) {
+            durationEstimator.record(
+                    booking.getService().getId(),
+                    booking.getBarber() != null ? booking.getBarber().getId() : null,
+                    java.time.Duration.between(booking.getActualStartTime(),
+                            booking.getActualEndTime()).toMinutes());
         }
 
-        // Notify next customer in queue
-        queueService.notifyNextInQueue(booking.getSalon().getId());
+        // Remove from queue and free the rest of its slot
+        queueService.removeFromQueue(booking.getId(), QueueStatus.COMPLETED);
+        slotCalendar.release(booking);
 
-        // Request review
-        notificationService.sendReviewRequest(booking);
+        // Barber stats, next-in-queue alerts and the review request are applied after commit
+        outboxService.record(OutboxEventType.SERVICE_COMPLETED, booking);
 
         log.info("Service completed for booking: {}", bookingId);
     }
@@ -288,14 +309,17 @@ public class BookingService {
         User cancelledBy = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+        onlineCapacityLimiter.release(booking);
         booking.setStatus(BookingStatus.CANCELLED);
         booking.setCancellationReason(reason);
-        booking.setCancelledAt(LocalDateTime.now());
+        booking.setCancelledAt(LocalDateTime.now(clock));
         booking.setCancelledBy(cancelledBy);
         bookingRepository.save(booking);
 
         // Remove from queue if present
-        queueService.removeFromQueue(bookingId);
+        queueService.removeFromQueue(bookingId, QueueStatus.CANCELLED);
+        barberAssignmentEngine.cancelled(booking);
+        slotCalendar.release(booking);
 
         // Process refund if payment was made
 //        if (booking.getPaymentStatus() == PaymentStatus.PAID) {
@@ -305,8 +329,8 @@ public class BookingService {
 //            }
 //        }
 
-        // Send cancellation notification
-        notificationService.sendBookingCancellation(booking);
+        // Cancellation notification is sent after commit
+        outboxService.record(OutboxEventType.BOOKING_CANCELLED, booking);
 
         log.info("Booking cancelled: {}", bookingId);
     }
@@ -321,6 +345,7 @@ public class BookingService {
         Booking booking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Booking not found"));
 
+        onlineCapacityLimiter.release(booking);
         booking.setStatus(BookingStatus.NO_SHOW);
         bookingRepository.save(booking);
 
@@ -330,7 +355,8 @@ public class BookingService {
         userRepository.save(customer);
 
         // Remove from queue
-        queueService.removeFromQueue(bookingId);
+        queueService.removeFromQueue(bookingId, QueueStatus.NO_SHOW);
+        slotCalendar.release(booking);
 
         // No refund for no-shows
 
@@ -338,49 +364,78 @@ public class BookingService {
     }
 
     /**
-     * Auto-cancel overdue bookings
+     * Mark overdue online bookings as no-show, at most chunkSize per salon.
+     * Each salon runs in its own transaction, so it holds only its own queue
+     * lane and a busy salon is skipped without rolling back the others.
+     * Returns the number of bookings marked.
      */
-    @Transactional
-    public void processOverdueBookings() {
-        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(autoCancelMinutes);
-        List<Booking> overdueBookings = bookingRepository.findOverdueBookings(cutoffTime);
-
-        log.info("Processing {} overdue bookings", overdueBookings.size());
-
-        for (Booking booking : overdueBookings) {
-            if (booking.getBookingType() == BookingType.ONLINE) {
-                markNoShow(booking.getId());
+    public int processOverdueBookings(int chunkSize) {
+        LocalDateTime cutoffTime = LocalDateTime.now(clock).minusMinutes(autoCancelMinutes);
+
+        int processed = 0;
+        for (UUID salonId : bookingRepository.findSalonIdsWithOverdueOnlineBookings(cutoffTime)) {
+            try {
+                Integer marked = transactionTemplate.execute(status ->
+                        processOverdueBookings(salonId, cutoffTime, chunkSize));
+                processed += marked != null ? marked : 0;
+            } catch (BusinessException e) {
+                // Queue busy; the salon is picked up again on the next pass
+                log.warn("Skipped overdue bookings of salon {}: {}", salonId, e.getMessage());
             }
         }
+        return processed;
     }
 
-    // Helper methods
+    /**
+     * One chunk of a salon's overdue bookings. Statuses and customers'
+     * no-show counts are bulk updates, and the queue is renumbered once.
+     */
+    private int processOverdueBookings(UUID salonId, LocalDateTime cutoffTime, int chunkSize) {
+        List<Booking> overdueBookings = bookingRepository.lockOverdueOnlineBookings(
+                salonId, cutoffTime, PageRequest.of(0, chunkSize));
 
-    private LocalDateTime calculateNextAvailableSlot(UUID salonId) {
-        List<Queue> currentQueue = queueRepository.findBySalonIdOrderByPositionAsc(salonId);
+        if (overdueBookings.isEmpty()) {
+            return 0;
+        }
 
-        if (currentQueue.isEmpty()) {
-            return LocalDateTime.now();
+        Map<UUID, Integer> noShowsByCustomer = new HashMap<>();
+        for (Booking booking : overdueBookings) {
+            noShowsByCustomer.merge(booking.getCustomer().getId(), 1, Integer::sum);
+            onlineCapacityLimiter.release(booking);
+            slotCalendar.release(booking);
         }
 
-        // Calculate based on queue
-        int totalWaitMinutes = currentQueue.stream()
-                .filter(q -> q.getStatus() == QueueStatus.WAITING)
-                .mapToInt(q -> q.getBooking().getEstimatedDurationMinutes())
-                .sum();
+        List<UUID> bookingIds = overdueBookings.stream().map(Booking::getId).toList();
+        queueService.removeFromQueue(salonId, bookingIds, QueueStatus.NO_SHOW);
 
-        return LocalDateTime.now().plusMinutes(totalWaitMinutes);
+        bookingRepository.markNoShow(bookingIds);
+
+        // One UPDATE per distinct count; nearly always a single "+1" for every customer
+        noShowsByCustomer.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach((count, customerIds) -> userRepository.incrementNoShowCount(customerIds, count));
+
+        // No refund for no-shows
+
+        log.info("Marked {} overdue bookings as no-show in salon {}", overdueBookings.size(), salonId);
+        return overdueBookings.size();
     }
 
-    private Barber assignBarber(UUID salonId) {
-        List<Barber> availableBarbers = barberRepository
-                .findAvailableBarbersOrderByLoad(salonId);
+    // Helper methods
 
-        if (availableBarbers.isEmpty()) {
-            return null; // No specific barber assigned
-        }
+    private LocalDateTime calculateNextAvailableSlot(UUID salonId) {
+        // Calculate based on queue, served by all available barbers in parallel
+        int waitMinutes = waitTimeEstimator.estimateSalon(salonId).getNextAvailableMinutes();
+
+        return LocalDateTime.now(clock).plusMinutes(waitMinutes);
+    }
 
-        return availableBarbers.get(0); // Assign least busy barber
+    private Barber assignBarber(UUID salonId, com.salonplatform.entity.Service service) {
+        // Barber who frees up first, or a specialist in the service not much later
+        return barberAssignmentEngine.assign(salonId, service.getCategory())
+                .map(barberRepository::getReferenceById)
+                .orElse(null); // No specific barber assigned
     }
 
     private User createGuestUser(String phone, String name) {
@@ -0,0 +1,120 @@
+package com.salonplatform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salonplatform.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key, so a client retrying
+ * after a lost response gets the original response back instead of a
+ * second booking. Keys are scoped by the caller (operation and user or
+ * booking) and bound to the request they were first used with.
+ *
+ * A request that fails releases its key, so a retry runs it again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    /**
+     * Run the action, or return the response recorded for the same key.
+     * Without a key the action simply runs.
+     */
+    public <T> T execute(String scope, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (!StringUtils.hasText(key)) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String storeKey = scope + ":" + key;
+        String fingerprint = fingerprint(request);
+        Duration ttl = Duration.ofMinutes(ttlMinutes);
+
+        Optional<IdempotencyStore.Entry> existing;
+        try {
+            existing = idempotencyStore.claim(storeKey, fingerprint, ttl);
+        } catch (DataAccessException e) {
+            log.warn("Idempotency store unavailable, running request unprotected: {}", e.getMessage());
+            return action.get();
+        }
+        if (existing.isPresent()) {
+            return replay(existing.get(), fingerprint, responseType);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(storeKey);
+            throw e;
+        }
+
+        try {
+            idempotencyStore.complete(storeKey, new IdempotencyStore.Entry(fingerprint, true, write(response)), ttl);
+        } catch (DataAccessException e) {
+            log.warn("Could not record response for idempotency key {}: {}", storeKey, e.getMessage());
+        }
+        return response;
+    }
+
+    private <T> T replay(IdempotencyStore.Entry entry, String fingerprint, Class<T> responseType) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            throw new BusinessException(HEADER + " was already used for a different request");
+        }
+        if (!entry.completed()) {
+            throw new BusinessException("A request with this " + HEADER + " is still being processed");
+        }
+
+        log.debug("Replaying recorded response for idempotent request");
+        try {
+            return objectMapper.readValue(entry.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read recorded response", e);
+        }
+    }
+
+    private void release(String storeKey) {
+        try {
+            idempotencyStore.release(storeKey);
+        } catch (DataAccessException e) {
+            log.warn("Could not release idempotency key {}: {}", storeKey, e.getMessage());
+        }
+    }
+
+    private String fingerprint(Object request) {
+        return DigestUtils.md5DigestAsHex(write(request).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent request", e);
+        }
+    }
+}
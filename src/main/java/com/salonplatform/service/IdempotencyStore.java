@@ -0,0 +1,35 @@
+package com.salonplatform.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Storage behind Idempotency-Key handling. A key is claimed before the
+ * request runs and completed with its response afterwards; both expire
+ * after the TTL. Selected with app.idempotency.store (memory or redis).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Recorded request: its fingerprint and, once completed, the response JSON
+     */
+    record Entry(String fingerprint, boolean completed, String response) {
+
+        static Entry inProgress(String fingerprint) {
+            return new Entry(fingerprint, false, null);
+        }
+    }
+
+    /**
+     * Claim the key for a new request. Returns the existing entry instead
+     * if the key is already claimed or completed.
+     */
+    Optional<Entry> claim(String key, String fingerprint, Duration ttl);
+
+    void complete(String key, Entry entry, Duration ttl);
+
+    /**
+     * Forget a claim whose request failed, so a retry runs it again
+     */
+    void release(String key);
+}
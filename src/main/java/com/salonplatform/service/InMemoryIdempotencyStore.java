@@ -0,0 +1,69 @@
+package com.salonplatform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency keys held by this node, bounded in size. Entries are kept in
+ * expiry order (every entry gets the same TTL when written), so expired
+ * ones are dropped from the head and the oldest go first when full.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private record Stored(Entry entry, long expiresAt) {
+    }
+
+    private final LinkedHashMap<String, Stored> entries = new LinkedHashMap<>();
+    private final int maxEntries;
+
+    public InMemoryIdempotencyStore(@Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized Optional<Entry> claim(String key, String fingerprint, Duration ttl) {
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+
+        Stored existing = entries.get(key);
+        if (existing != null) {
+            return Optional.of(existing.entry());
+        }
+
+        entries.put(key, new Stored(Entry.inProgress(fingerprint), now + ttl.toMillis()));
+        if (entries.size() > maxEntries) {
+            Iterator<String> oldest = entries.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized void complete(String key, Entry entry, Duration ttl) {
+        // Re-insert at the tail to keep expiry order
+        entries.remove(key);
+        entries.put(key, new Stored(entry, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Map.Entry<String, Stored>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue().expiresAt() <= now) {
+            iterator.remove();
+        }
+    }
+}
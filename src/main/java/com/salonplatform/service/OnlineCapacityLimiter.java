@@ -0,0 +1,149 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.enums.BookingType;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps outstanding online bookings (pending or confirmed, not yet started)
+ * per salon at onlineBookingPercentage of its online capacity: available
+ * barbers (at least one) times app.online-capacity.bookings-per-barber.
+ * The rest is left for walk-ins.
+ *
+ * Admission is a CAS on the salon's counter, with no lock and no count
+ * query. Counters are loaded from the database on first use and
+ * reconciled periodically, which also picks up barbers going on or off
+ * duty and bookings made on other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OnlineCapacityLimiter {
+
+    private static final class Capacity {
+        final AtomicInteger outstanding;
+        volatile int barbers;
+
+        Capacity(int outstanding, int barbers) {
+            this.outstanding = new AtomicInteger(outstanding);
+            this.barbers = barbers;
+        }
+    }
+
+    private final Map<UUID, Capacity> salons = new ConcurrentHashMap<>();
+    private final BookingRepository bookingRepository;
+    private final BarberRepository barberRepository;
+    private final Clock clock;
+
+    @Value("${app.online-capacity.bookings-per-barber:8}")
+    private int bookingsPerBarber;
+
+    /**
+     * Take one unit of the salon's online capacity; false when it is used up.
+     * Given back if the booking's transaction rolls back.
+     */
+    public boolean tryAcquire(Salon salon) {
+        Capacity capacity = capacity(salon.getId());
+        // A salon with nobody on duty yet still takes bookings, as one barber would
+        int limit = Math.max(1, capacity.barbers) * bookingsPerBarber * salon.getOnlineBookingPercentage() / 100;
+
+        int current;
+        do {
+            current = capacity.outstanding.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!capacity.outstanding.compareAndSet(current, current + 1));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        capacity.outstanding.decrementAndGet();
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * An online booking stops holding capacity (started, cancelled, no-show).
+     * Call before changing its status; applies once the transaction commits.
+     */
+    public void release(Booking booking) {
+        if (booking.getBookingType() != BookingType.ONLINE
+                || (booking.getStatus() != BookingStatus.PENDING && booking.getStatus() != BookingStatus.CONFIRMED)) {
+            return;
+        }
+        Capacity capacity = salons.get(booking.getSalon().getId());
+        if (capacity == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            capacity.outstanding.decrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                capacity.outstanding.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Reset counters to the database's view. Bookings committed between the
+     * count and the reset are corrected on the next pass.
+     */
+    @Scheduled(fixedDelayString = "${app.online-capacity.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        salons.forEach((salonId, capacity) -> {
+            int outstanding = outstanding(salonId);
+            int drift = capacity.outstanding.getAndSet(outstanding) - outstanding;
+            capacity.barbers = (int) barberRepository.countBySalonIdAndIsAvailableTrue(salonId);
+            if (drift != 0) {
+                log.debug("Online capacity for salon {} reconciled ({} off)", salonId, drift);
+            }
+        });
+    }
+
+    private Capacity capacity(UUID salonId) {
+        Capacity capacity = salons.get(salonId);
+        if (capacity != null) {
+            return capacity;
+        }
+        capacity = new Capacity(outstanding(salonId),
+                (int) barberRepository.countBySalonIdAndIsAvailableTrue(salonId));
+        Capacity existing = salons.putIfAbsent(salonId, capacity);
+        return existing != null ? existing : capacity;
+    }
+
+    /**
+     * Today's online bookings still holding capacity, as counted on admission
+     */
+    private int outstanding(UUID salonId) {
+        LocalDate today = LocalDate.now(clock);
+        return (int) bookingRepository.countOutstandingOnlineBookings(salonId,
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,230 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.OutboxEvent;
+import com.salonplatform.enums.OutboxStatus;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import com.salonplatform.repository.OutboxEventRepository;
+import com.salonplatform.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies outbox events after the booking transaction commits: customer
+ * and barber stats, next-in-queue alerts and notifications.
+ *
+ * Woken after each commit and polled as a safety net, it loads due events
+ * in batches and applies each in its own transaction together with marking
+ * it dispatched. Database effects (the stats counters) therefore land
+ * exactly once. Notifications and next-in-queue alerts leave the
+ * transaction, so they are at-least-once: if a later step fails or the
+ * commit does not happen, the event is retried and they may be sent
+ * again. Events are locked with SKIP LOCKED, so several nodes can dispatch
+ * side by side. A failed event is retried with exponential backoff and
+ * parked as FAILED after the last attempt.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final BarberRepository barberRepository;
+    private final NotificationService notificationService;
+    private final QueueService queueService;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    // One dispatch run at a time per node; wake-ups while one is queued coalesce
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.outbox.retention-hours:24}")
+    private int retentionHours;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            BookingRepository bookingRepository,
+                            UserRepository userRepository,
+                            BarberRepository barberRepository,
+                            NotificationService notificationService,
+                            QueueService queueService,
+                            PlatformTransactionManager transactionManager,
+                            Clock clock) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.barberRepository = barberRepository;
+        this.notificationService = notificationService;
+        this.queueService = queueService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    /**
+     * Dispatch due events soon, off the caller's thread
+     */
+    public void wake() {
+        if (wakeQueued.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                wakeQueued.set(false);
+                try {
+                    dispatchDue();
+                } catch (RuntimeException e) {
+                    log.error("Outbox dispatch run failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Picks up events whose wake-up was lost (restart, other node) and retries
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wake();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}")
+    public void purgeDispatched() {
+        LocalDateTime before = LocalDateTime.now(clock).minusHours(retentionHours);
+        Integer purged = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteByStatusAndDispatchedAtBefore(OutboxStatus.DISPATCHED, before));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} dispatched outbox events", purged);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Dispatch due events batch by batch until none are left. Returns the
+     * number of events dispatched.
+     */
+    int dispatchDue() {
+        int dispatched = 0;
+        while (true) {
+            List<UUID> due = outboxEventRepository.findDueIds(
+                    OutboxStatus.PENDING, LocalDateTime.now(clock), PageRequest.of(0, batchSize));
+
+            int handled = 0;
+            for (UUID eventId : due) {
+                try {
+                    if (dispatch(eventId)) {
+                        dispatched++;
+                        handled++;
+                    }
+                } catch (RuntimeException e) {
+                    recordFailure(eventId, e);
+                    handled++;
+                }
+            }
+
+            // Stop on a short batch, or when every event was held by another node
+            if (due.size() < batchSize || handled == 0) {
+                if (dispatched > 0) {
+                    log.debug("Dispatched {} outbox events", dispatched);
+                }
+                return dispatched;
+            }
+        }
+    }
+
+    private boolean dispatch(UUID eventId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Optional<OutboxEvent> locked = outboxEventRepository.lockByIdAndStatus(eventId, OutboxStatus.PENDING);
+            if (locked.isEmpty()) {
+                return false;
+            }
+
+            OutboxEvent event = locked.get();
+            apply(event);
+            event.setStatus(OutboxStatus.DISPATCHED);
+            event.setDispatchedAt(LocalDateTime.now(clock));
+            event.setAttempts(event.getAttempts() + 1);
+            return true;
+        }));
+    }
+
+    private void apply(OutboxEvent event) {
+        Optional<Booking> found = bookingRepository.findById(event.getBookingId());
+        if (found.isEmpty()) {
+            log.warn("Booking {} of outbox event {} no longer exists, skipping", event.getBookingId(), event.getId());
+            return;
+        }
+        Booking booking = found.get();
+
+        switch (event.getType()) {
+            case BOOKING_CONFIRMED -> {
+                userRepository.incrementTotalBookings(booking.getCustomer().getId());
+                notificationService.sendBookingConfirmation(booking);
+            }
+            case SERVICE_STARTED -> notificationService.sendServiceStarted(booking);
+            case SERVICE_COMPLETED -> {
+                if (booking.getBarber() != null) {
+                    barberRepository.incrementTotalServices(booking.getBarber().getId());
+                }
+                queueService.notifyNextInQueue(booking.getSalon().getId());
+                notificationService.sendReviewRequest(booking);
+            }
+            case BOOKING_CANCELLED -> notificationService.sendBookingCancellation(booking);
+        }
+    }
+
+    private void recordFailure(UUID eventId, RuntimeException cause) {
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId).ifPresent(event -> {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(truncate(cause.toString()));
+
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                log.error("Outbox event {} ({}) failed after {} attempts", eventId, event.getType(), attempts, cause);
+            } else {
+                // Exponential backoff, capped at an hour
+                long backoff = Math.min(retryBackoffMs << Math.min(attempts - 1, 20), Duration.ofHours(1).toMillis());
+                event.setNextAttemptAt(LocalDateTime.now(clock).plus(Duration.ofMillis(backoff)));
+                log.warn("Outbox event {} ({}) failed, retrying in {} ms: {}",
+                        eventId, event.getType(), backoff, cause.getMessage());
+            }
+        }));
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
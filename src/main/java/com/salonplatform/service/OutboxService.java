@@ -0,0 +1,52 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.OutboxEvent;
+import com.salonplatform.enums.OutboxEventType;
+import com.salonplatform.enums.OutboxStatus;
+import com.salonplatform.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Records booking side effects in the outbox, in the caller's transaction,
+ * and wakes the dispatcher once that transaction commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final Clock clock;
+
+    @Transactional
+    public void record(OutboxEventType type, Booking booking) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .bookingId(booking.getId())
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            outboxDispatcher.wake();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wake();
+            }
+        });
+    }
+}
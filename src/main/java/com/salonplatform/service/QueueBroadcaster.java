@@ -0,0 +1,134 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueDeltaResponse;
+import com.salonplatform.dto.QueueEntryMove;
+import com.salonplatform.dto.QueuePositionUpdate;
+import com.salonplatform.dto.QueueResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Sends queue frames to WebSocket subscribers.
+ *
+ * JSON frames go to /topic/salon/{id}/queue. Clients that negotiate the
+ * compact encoding subscribe to /topic/salon/{id}/queue.cbor instead,
+ * over the raw /ws-binary endpoint (SockJS can only carry text frames).
+ * Waiting customers get only their own entry on /user/queue/position.
+ */
+@Component
+@Slf4j
+public class QueueBroadcaster {
+
+    public static final String CBOR_SUFFIX = ".cbor";
+    public static final String POSITION_DESTINATION = "/queue/position";
+    // Lets slow-consumer buffering replace position frames per salon
+    public static final String SALON_HEADER = "salon-id";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final QueueFrameCodec queueFrameCodec;
+    private final QueueSubscriptionRegistry subscriptionRegistry;
+    private final Counter sent;
+    private final Counter positionsSent;
+
+    @Value("${app.websocket.binary-frames.enabled:true}")
+    private boolean binaryFrames;
+
+    public QueueBroadcaster(SimpMessagingTemplate messagingTemplate,
+                            QueueFrameCodec queueFrameCodec,
+                            QueueSubscriptionRegistry subscriptionRegistry,
+                            MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.queueFrameCodec = queueFrameCodec;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.sent = Counter.builder("queue.broadcasts")
+                .tag("outcome", "sent")
+                .description("Queue deltas sent to subscribers")
+                .register(meterRegistry);
+        this.positionsSent = Counter.builder("queue.position.updates")
+                .description("Personal queue position updates sent to customers")
+                .register(meterRegistry);
+    }
+
+    public static String queueTopic(UUID salonId) {
+        return "/topic/salon/" + salonId + "/queue";
+    }
+
+    public void sendQueueDelta(UUID salonId, QueueDeltaResponse delta) {
+        String topic = queueTopic(salonId);
+        if (subscriptionRegistry.hasSubscribers(topic)) {
+            messagingTemplate.convertAndSend(topic, delta);
+        }
+
+        String binaryTopic = topic + CBOR_SUFFIX;
+        if (binaryFrames && subscriptionRegistry.hasSubscribers(binaryTopic)) {
+            sendBinary(binaryTopic, queueFrameCodec.encode(delta));
+        }
+        sent.increment();
+    }
+
+    /**
+     * Send each customer whose entry was added or moved in the delta their
+     * new position and ETA. Customers not subscribed to their position are skipped.
+     */
+    public void sendPositionUpdates(UUID salonId, QueueDeltaResponse delta, Map<UUID, UUID> customerByQueueId) {
+        for (QueueResponse entry : delta.getInserted()) {
+            sendPosition(customerByQueueId.get(entry.getQueueId()), QueuePositionUpdate.builder()
+                    .salonId(salonId)
+                    .queueId(entry.getQueueId())
+                    .position(entry.getPosition())
+                    .estimatedWaitMinutes(entry.getEstimatedWaitMinutes())
+                    .estimatedStartTime(entry.getEstimatedStartTime())
+                    .status(entry.getStatus())
+                    .epoch(delta.getEpoch())
+                    .version(delta.getVersion())
+                    .build());
+        }
+
+        for (QueueEntryMove move : delta.getMoved()) {
+            sendPosition(customerByQueueId.get(move.getQueueId()), QueuePositionUpdate.builder()
+                    .salonId(salonId)
+                    .queueId(move.getQueueId())
+                    .position(move.getPosition())
+                    .estimatedWaitMinutes(move.getEstimatedWaitMinutes())
+                    .estimatedStartTime(move.getEstimatedStartTime())
+                    .status(move.getStatus())
+                    .epoch(delta.getEpoch())
+                    .version(delta.getVersion())
+                    .build());
+        }
+    }
+
+    private void sendPosition(UUID customerId, QueuePositionUpdate update) {
+        if (customerId == null) {
+            return;
+        }
+
+        String user = customerId.toString();
+        if (subscriptionRegistry.hasPositionSubscriber(user)) {
+            messagingTemplate.convertAndSendToUser(user, POSITION_DESTINATION, update,
+                    Map.of(SALON_HEADER, update.getSalonId().toString()));
+            positionsSent.increment();
+        }
+    }
+
+    private void sendBinary(String destination, byte[] payload) {
+        // STOMP only uses binary WebSocket frames for application/octet-stream
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader("content-encoding", "cbor");
+        accessor.setLeaveMutable(true);
+
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
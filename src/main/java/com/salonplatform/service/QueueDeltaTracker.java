@@ -0,0 +1,189 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueDeltaResponse;
+import com.salonplatform.dto.QueueEntryMove;
+import com.salonplatform.dto.QueueResponse;
+import com.salonplatform.dto.QueueSnapshotResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last published queue of every salon together with a
+ * monotonically increasing version, so broadcasts only carry what changed.
+ *
+ * Versions live in memory and restart from 0 with the process, so every
+ * delta and snapshot also carries the epoch (this tracker's start time).
+ * A client seeing a different epoch than the one its state came from
+ * resyncs from the snapshot, even if the versions happen to line up.
+ */
+@Component
+@Slf4j
+public class QueueDeltaTracker {
+
+    private final Map<UUID, SalonQueueVersion> salons = new ConcurrentHashMap<>();
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * Diff the current queue against the last published one and hand the
+     * delta to the sender. Runs under the salon's lock so versions reach
+     * the sender in order. Nothing is sent if the queue did not change.
+     */
+    public QueueDeltaResponse publish(UUID salonId, List<QueueResponse> current,
+                                      Consumer<QueueDeltaResponse> sender) {
+        SalonQueueVersion state = salons.computeIfAbsent(salonId, id -> new SalonQueueVersion());
+
+        synchronized (state) {
+            QueueDeltaResponse delta = state.diff(salonId, epoch, current);
+            state.stale = false;
+            if (delta == null) {
+                return null;
+            }
+            sender.accept(delta);
+            return delta;
+        }
+    }
+
+    /**
+     * Versioned snapshot for clients that detected a gap. Returns the state
+     * the published deltas are relative to; the loader is only used when
+     * nothing was published for the salon yet (e.g. after a restart) or
+     * updates were skipped since the last publish.
+     */
+    public QueueSnapshotResponse snapshot(UUID salonId, Supplier<List<QueueResponse>> loader) {
+        SalonQueueVersion state = salons.computeIfAbsent(salonId, id -> new SalonQueueVersion());
+
+        synchronized (state) {
+            if (!state.initialized) {
+                state.reset(loader.get());
+            } else if (state.stale) {
+                // Advance the version past the skipped updates
+                state.diff(salonId, epoch, loader.get());
+            }
+            state.stale = false;
+            return QueueSnapshotResponse.builder()
+                    .salonId(salonId)
+                    .epoch(epoch)
+                    .version(state.version)
+                    .entries(new ArrayList<>(state.entries.values()))
+                    .build();
+        }
+    }
+
+    /**
+     * Record that the salon changed without a publish (nobody was
+     * subscribed), so the next snapshot reloads instead of serving the
+     * last published state.
+     */
+    public void markStale(UUID salonId) {
+        SalonQueueVersion state = salons.get(salonId);
+        if (state != null) {
+            synchronized (state) {
+                state.stale = true;
+            }
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long currentVersion(UUID salonId) {
+        SalonQueueVersion state = salons.get(salonId);
+        return state != null ? state.version : 0L;
+    }
+
+    private static final class SalonQueueVersion {
+        private long version;
+        private boolean initialized;
+        private boolean stale;
+        // Ordered by position, as published
+        private LinkedHashMap<UUID, QueueResponse> entries = new LinkedHashMap<>();
+
+        private void reset(List<QueueResponse> current) {
+            entries = index(current);
+            initialized = true;
+        }
+
+        private QueueDeltaResponse diff(UUID salonId, long epoch, List<QueueResponse> current) {
+            LinkedHashMap<UUID, QueueResponse> next = index(current);
+
+            List<QueueResponse> inserted = new ArrayList<>();
+            List<QueueEntryMove> moved = new ArrayList<>();
+            List<UUID> removed = new ArrayList<>();
+
+            for (QueueResponse entry : next.values()) {
+                QueueResponse previous = entries.get(entry.getQueueId());
+                if (previous == null) {
+                    inserted.add(entry);
+                } else if (!sameDetails(previous, entry)) {
+                    // Rare: booking details changed, send the full entry
+                    inserted.add(entry);
+                } else if (!samePlacement(previous, entry)) {
+                    moved.add(QueueEntryMove.builder()
+                            .queueId(entry.getQueueId())
+                            .position(entry.getPosition())
+                            .estimatedWaitMinutes(entry.getEstimatedWaitMinutes())
+                            .estimatedStartTime(entry.getEstimatedStartTime())
+                            .status(entry.getStatus())
+                            .build());
+                }
+            }
+
+            for (UUID queueId : entries.keySet()) {
+                if (!next.containsKey(queueId)) {
+                    removed.add(queueId);
+                }
+            }
+
+            entries = next;
+
+            if (initialized && inserted.isEmpty() && moved.isEmpty() && removed.isEmpty()) {
+                return null;
+            }
+            initialized = true;
+
+            long previousVersion = version;
+            version++;
+
+            return QueueDeltaResponse.builder()
+                    .salonId(salonId)
+                    .epoch(epoch)
+                    .version(version)
+                    .previousVersion(previousVersion)
+                    .inserted(inserted)
+                    .removed(removed)
+                    .moved(moved)
+                    .build();
+        }
+
+        private static LinkedHashMap<UUID, QueueResponse> index(List<QueueResponse> queue) {
+            LinkedHashMap<UUID, QueueResponse> map = new LinkedHashMap<>();
+            for (QueueResponse entry : queue) {
+                map.put(entry.getQueueId(), entry);
+            }
+            return map;
+        }
+
+        private static boolean samePlacement(QueueResponse a, QueueResponse b) {
+            return Objects.equals(a.getPosition(), b.getPosition())
+                    && Objects.equals(a.getEstimatedWaitMinutes(), b.getEstimatedWaitMinutes())
+                    && Objects.equals(a.getEstimatedStartTime(), b.getEstimatedStartTime())
+                    && Objects.equals(a.getStatus(), b.getStatus());
+        }
+
+        private static boolean sameDetails(QueueResponse a, QueueResponse b) {
+            return Objects.equals(a.getBookingId(), b.getBookingId())
+                    && Objects.equals(a.getCustomerName(), b.getCustomerName())
+                    && Objects.equals(a.getServiceName(), b.getServiceName())
+                    && Objects.equals(a.getBarberName(), b.getBarberName())
+                    && Objects.equals(a.getBookingType(), b.getBookingType())
+                    && Objects.equals(a.getIsPaid(), b.getIsPaid())
+                    && Objects.equals(a.getAddedAt(), b.getAddedAt());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueResponse;
+import com.salonplatform.dto.QueueStatsResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Event streams of a salon's queue stats and availability, for
+ * dashboards and kiosks that cannot use STOMP. Fed by the same queue
+ * broadcasts as the WebSocket topics once the change commits, so one open
+ * connection replaces polling. An open stream counts as a subscriber, so
+ * salons nobody streams or subscribes to still cost nothing.
+ *
+ * Sends happen on a bounded sender pool, off the queue lane. Every stream
+ * holds at most one unsent event, drained by one sender at a time: events
+ * carry full state, so while a write to a slow client is in progress a
+ * newer event replaces the waiting one, and the client never holds up
+ * other streams beyond its own sender. Availability is computed once per
+ * change on the pool, then handed to each stream.
+ *
+ * Streams see the changes made through this node only; in relay mode
+ * they are opened on the queue writer node.
+ */
+@Component
+@Slf4j
+public class QueueEventStreams {
+
+    public enum Stream {
+        STATS("stats"),
+        AVAILABILITY("availability");
+
+        private final String eventName;
+
+        Stream(String eventName) {
+            this.eventName = eventName;
+        }
+    }
+
+    private final Map<Stream, Map<UUID, Set<Client>>> streams = new EnumMap<>(Stream.class);
+    // Salons whose availability is being or must be recomputed
+    private final Map<UUID, AvailabilityDue> availabilityDue = new ConcurrentHashMap<>();
+    private final SalonService salonService;
+    private final QueueSubscriptionRegistry subscriptionRegistry;
+    private final ThreadPoolExecutor sender;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public QueueEventStreams(SalonService salonService, QueueSubscriptionRegistry subscriptionRegistry,
+                             @Value("${app.sse.sender-threads:4}") int senderThreads,
+                             @Value("${app.sse.sender-queue-capacity:1024}") int senderQueueCapacity) {
+        this.salonService = salonService;
+        this.subscriptionRegistry = subscriptionRegistry;
+        for (Stream stream : Stream.values()) {
+            streams.put(stream, new ConcurrentHashMap<>());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(senderQueueCapacity), r -> {
+            Thread thread = new Thread(r, "queue-sse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Open a stream and send the current state as its first event. The
+     * stream is registered before the state is read so no change is missed;
+     * changes arriving meanwhile are sent after the first event.
+     */
+    public SseEmitter open(UUID salonId, Stream stream, Supplier<?> initial) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(salonId, stream, emitter);
+        emitter.onCompletion(() -> close(client));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> close(client));
+
+        streams.get(stream).compute(salonId, (id, clients) -> {
+            Set<Client> open = clients != null ? clients : ConcurrentHashMap.newKeySet();
+            open.add(client);
+            return open;
+        });
+        subscriptionRegistry.streamOpened(salonId);
+
+        try {
+            client.start(event(stream, initial.get(), null));
+        } catch (RuntimeException e) {
+            close(client);
+            throw e;
+        }
+        return emitter;
+    }
+
+    public boolean hasStreams(UUID salonId) {
+        return streams.values().stream().anyMatch(salons -> salons.containsKey(salonId));
+    }
+
+    /**
+     * Push the salon's new stats, and availability if anyone streams it.
+     * Callers run after the queue change has committed.
+     */
+    public void publish(UUID salonId, List<QueueResponse> queue, Long version) {
+        if (!hasStreams(salonId)) {
+            return;
+        }
+
+        Set<Client> statsStreams = clients(Stream.STATS, salonId);
+        if (!statsStreams.isEmpty()) {
+            SseEmitter.SseEventBuilder stats = event(Stream.STATS, QueueSnapshotCache.statsOf(queue), version);
+            statsStreams.forEach(client -> client.offer(stats, version));
+        }
+
+        if (!clients(Stream.AVAILABILITY, salonId).isEmpty()) {
+            boolean[] start = new boolean[1];
+            availabilityDue.compute(salonId, (id, due) -> {
+                AvailabilityDue current = due != null ? due : new AvailabilityDue();
+                current.version = version;
+                current.due = true;
+                start[0] = !current.running;
+                current.running = true;
+                return current;
+            });
+            if (start[0]) {
+                computeAvailability(salonId);
+            }
+        }
+    }
+
+    /**
+     * Comment line to every open stream, so proxies keep idle connections
+     * open and closed clients are noticed. Also resumes work the sender
+     * pool had no room for.
+     */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        SseEmitter.SseEventBuilder ping = SseEmitter.event().comment("ping");
+        streams.values().forEach(salons -> salons.values()
+                .forEach(clients -> clients.forEach(client -> client.ping(ping))));
+        availabilityDue.keySet().forEach(salonId -> {
+            boolean[] start = new boolean[1];
+            availabilityDue.computeIfPresent(salonId, (id, due) -> {
+                start[0] = !due.running;
+                due.running = true;
+                return due;
+            });
+            if (start[0]) {
+                computeAvailability(salonId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        streams.values().forEach(salons -> salons.values()
+                .forEach(clients -> clients.forEach(client -> client.emitter.complete())));
+    }
+
+    /**
+     * Compute the salon's availability until no change is due, one
+     * computation per salon at a time. Changes arriving meanwhile are
+     * folded into the next computation.
+     */
+    private void computeAvailability(UUID salonId) {
+        try {
+            sender.execute(() -> {
+                Long[] version = new Long[1];
+                while (nextAvailability(salonId, version)) {
+                    try {
+                        // Computed once per change, however many clients are streaming it
+                        SseEmitter.SseEventBuilder availability = event(Stream.AVAILABILITY,
+                                salonService.getAvailability(salonId), version[0]);
+                        clients(Stream.AVAILABILITY, salonId)
+                                .forEach(client -> client.offer(availability, version[0]));
+                    } catch (Exception e) {
+                        log.warn("Failed to compute availability for salon {}: {}", salonId, e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Sender pool full; still due, so the next heartbeat retries
+            availabilityDue.computeIfPresent(salonId, (id, due) -> {
+                due.running = false;
+                return due;
+            });
+        }
+    }
+
+    /** Take the salon's due change, or remove it once nothing is due */
+    private boolean nextAvailability(UUID salonId, Long[] version) {
+        boolean[] due = new boolean[1];
+        availabilityDue.computeIfPresent(salonId, (id, current) -> {
+            if (!current.due) {
+                return null;
+            }
+            current.due = false;
+            version[0] = current.version;
+            due[0] = true;
+            return current;
+        });
+        return due[0];
+    }
+
+    private static SseEmitter.SseEventBuilder event(Stream stream, Object data, Long version) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name(stream.eventName)
+                .data(data, MediaType.APPLICATION_JSON);
+        if (version != null) {
+            event.id(version.toString());
+        }
+        return event;
+    }
+
+    private Set<Client> clients(Stream stream, UUID salonId) {
+        return streams.get(stream).getOrDefault(salonId, Set.of());
+    }
+
+    private void close(Client client) {
+        client.discard();
+        boolean[] removed = new boolean[1];
+        streams.get(client.stream).computeIfPresent(client.salonId, (id, clients) -> {
+            removed[0] = clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+
+        if (removed[0]) {
+            subscriptionRegistry.streamClosed(client.salonId);
+        }
+    }
+
+    // Guarded by the availabilityDue map entry
+    private static final class AvailabilityDue {
+        private Long version;
+        private boolean due;
+        private boolean running;
+    }
+
+    /**
+     * One open stream: its first event, then at most one waiting event,
+     * sent by one sender thread at a time.
+     */
+    private final class Client {
+        private final UUID salonId;
+        private final Stream stream;
+        private final SseEmitter emitter;
+        // Guarded by this
+        private SseEmitter.SseEventBuilder first;
+        private SseEmitter.SseEventBuilder pending;
+        private long lastVersion = Long.MIN_VALUE;
+        private boolean started;
+        private boolean draining;
+        private boolean discarded;
+
+        Client(UUID salonId, Stream stream, SseEmitter emitter) {
+            this.salonId = salonId;
+            this.stream = stream;
+            this.emitter = emitter;
+        }
+
+        synchronized void start(SseEmitter.SseEventBuilder initial) {
+            first = initial;
+            started = true;
+            startDrain();
+        }
+
+        /** Replace the waiting event, unless it is older than one already offered */
+        synchronized void offer(SseEmitter.SseEventBuilder event, Long version) {
+            if (version != null) {
+                if (version < lastVersion) {
+                    return;
+                }
+                lastVersion = version;
+            }
+            pending = event;
+            startDrain();
+        }
+
+        /** Ping only an idle stream; a waiting event keeps the connection busy anyway */
+        synchronized void ping(SseEmitter.SseEventBuilder event) {
+            if (started && first == null && pending == null && !draining) {
+                pending = event;
+            }
+            startDrain();
+        }
+
+        synchronized void discard() {
+            discarded = true;
+            first = null;
+            pending = null;
+        }
+
+        private void startDrain() {
+            if (!started || draining || discarded || (first == null && pending == null)) {
+                return;
+            }
+            try {
+                draining = true;
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Sender pool full; the next heartbeat retries
+                draining = false;
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = first != null ? first : pending;
+                    if (next == null || discarded) {
+                        draining = false;
+                        return;
+                    }
+                    if (next == first) {
+                        first = null;
+                    } else {
+                        pending = null;
+                    }
+                }
+
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away
+                    close(this);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.salonplatform.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.cfg.DateTimeFeature;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.cbor.CBORWriteFeature;
+
+/**
+ * Compact CBOR encoding for queue frames sent to binary WebSocket
+ * subscribers. UUIDs are written as 16 raw bytes, timestamps as integer
+ * arrays ([y, m, d, h, min, s, millis]) and empty collections are left out.
+ */
+@Component
+public class QueueFrameCodec {
+
+    private final CBORMapper mapper;
+
+    public QueueFrameCodec(@Value("${app.websocket.cbor.stringref:false}") boolean stringRefs) {
+        this.mapper = buildMapper(stringRefs);
+    }
+
+    public byte[] encode(Object frame) {
+        return mapper.writeValueAsBytes(frame);
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        return mapper.readValue(bytes, type);
+    }
+
+    /**
+     * @param stringRefs share repeated field names via CBOR stringref tags
+     *                   (smaller, but clients need a decoder that supports them)
+     */
+    static CBORMapper buildMapper(boolean stringRefs) {
+        CBORMapper.Builder builder = CBORMapper.builder()
+                .enable(DateTimeFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DateTimeFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DateTimeFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .changeDefaultPropertyInclusion(inclusion ->
+                        inclusion.withValueInclusion(JsonInclude.Include.NON_EMPTY));
+        if (stringRefs) {
+            builder.enable(CBORWriteFeature.STRINGREF);
+        }
+        return builder.build();
+    }
+}
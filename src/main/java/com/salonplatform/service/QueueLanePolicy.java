@@ -0,0 +1,350 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Queue;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.BookingType;
+import com.salonplatform.enums.QueueStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Decides where a new entry joins a salon's waiting queue so ONLINE and
+ * WALKIN bookings are served in the salon's onlineBookingPercentage ratio.
+ *
+ * Every waiting entry carries a lane tag (start-time fair queueing): a new
+ * entry is tagged max(virtual time, last tag of its lane) + its lane's
+ * stride, the stride being inversely proportional to the lane's share.
+ * The queue is served in tag order, so while both lanes have customers
+ * waiting they alternate in the configured ratio, and an entry arriving
+ * in an idle lane joins near the front. The tags of waiting entries are
+ * kept per salon in an order-statistic treap, so placing an entry is
+ * O(log n) and only the entries behind it move back.
+ *
+ * Per-salon state is rebuilt from the queue table when missing or out of
+ * step with it, and dropped when a transaction that changed it rolls back.
+ * All calls for a salon must run inside its queue lane.
+ */
+@Component
+@Slf4j
+public class QueueLanePolicy {
+
+    /** Tag distance between consecutive entries of a lane with a 100% share */
+    static final long TAG_SCALE = 1_000;
+
+    private final Map<UUID, SalonLanes> salons = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public QueueLanePolicy(@Value("${app.queue.priority-lanes.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Queue position (1-based) and lane tag for an entry */
+    public record Placement(int position, long tag) {
+    }
+
+    /**
+     * Place a new entry of the given booking type. waitingCount is the
+     * number of waiting entries in the table, used to detect stale state;
+     * the loader returns them in position order and is only called to
+     * rebuild.
+     */
+    public Placement place(Salon salon, BookingType type, long waitingCount, Supplier<List<Queue>> loader) {
+        SalonLanes lanes = lanes(salon.getId(), loader);
+        if (lanes.order.size() != waitingCount) {
+            log.debug("Lane state of salon {} out of step, rebuilding", salon.getId());
+            lanes = rebuild(salon.getId(), loader);
+        }
+
+        long tag;
+        if (enabled && Boolean.TRUE.equals(salon.getAcceptsOnlineBooking())) {
+            int lane = type.ordinal();
+            tag = Math.max(lanes.virtualTime, lanes.lastTag[lane]) + stride(shareOf(salon, type));
+            tag = lanes.unique(tag);
+            lanes.lastTag[lane] = tag;
+        } else {
+            // Plain FIFO
+            tag = lanes.unique(Math.max(lanes.virtualTime, lanes.order.last()) + TAG_SCALE);
+        }
+
+        return lanes.insert(tag);
+    }
+
+    /**
+     * Move a waiting entry behind everyone currently waiting (late arrival)
+     */
+    public Placement moveToEnd(UUID salonId, Queue entry, Supplier<List<Queue>> loader) {
+        SalonLanes lanes = lanes(salonId, loader);
+        if (entry.getLaneTag() != null) {
+            lanes.order.remove(entry.getLaneTag());
+        }
+        long tag = lanes.unique(Math.max(lanes.virtualTime, lanes.order.last()) + 1);
+        return lanes.insert(tag);
+    }
+
+    /**
+     * Staff put the waiting entries in this order. The salon's existing
+     * tags are handed out again in the new order, so lane history is kept.
+     */
+    public void reorder(UUID salonId, List<Queue> waiting) {
+        List<Long> tags = new ArrayList<>();
+        for (Queue entry : waiting) {
+            if (entry.getLaneTag() != null) {
+                tags.add(entry.getLaneTag());
+            }
+        }
+        Collections.sort(tags);
+
+        boolean complete = tags.size() == waiting.size();
+        for (int i = 0; i < waiting.size(); i++) {
+            // Untagged rows: retag everything in order on rebuild
+            waiting.get(i).setLaneTag(complete ? tags.get(i) : null);
+        }
+
+        dropOnRollback(salonId);
+        rebuild(salonId, () -> waiting);
+    }
+
+    /**
+     * A waiting entry went into service; virtual time advances to its tag
+     */
+    public void started(Queue entry) {
+        SalonLanes lanes = leaving(entry);
+        if (lanes != null) {
+            lanes.virtualTime = Math.max(lanes.virtualTime, entry.getLaneTag());
+        }
+    }
+
+    /**
+     * A waiting entry left the queue without being served
+     */
+    public void removed(Queue entry) {
+        leaving(entry);
+    }
+
+    private SalonLanes leaving(Queue entry) {
+        if (entry.getStatus() != QueueStatus.WAITING || entry.getLaneTag() == null) {
+            return null;
+        }
+        UUID salonId = entry.getSalon().getId();
+        SalonLanes lanes = salons.get(salonId);
+        if (lanes != null) {
+            dropOnRollback(salonId);
+            lanes.order.remove(entry.getLaneTag());
+        }
+        return lanes;
+    }
+
+    private SalonLanes lanes(UUID salonId, Supplier<List<Queue>> loader) {
+        SalonLanes lanes = salons.get(salonId);
+        if (lanes == null) {
+            lanes = rebuild(salonId, loader);
+        }
+        dropOnRollback(salonId);
+        return lanes;
+    }
+
+    /**
+     * Rebuild from the waiting entries in position order. Entries without a
+     * tag (or out of order) are re-tagged, so order always follows position.
+     */
+    private SalonLanes rebuild(UUID salonId, Supplier<List<Queue>> loader) {
+        SalonLanes lanes = new SalonLanes();
+        long previous = Long.MIN_VALUE;
+
+        for (Queue entry : loader.get()) {
+            Long tag = entry.getLaneTag();
+            if (tag == null || tag <= previous) {
+                tag = previous == Long.MIN_VALUE ? TAG_SCALE : previous + TAG_SCALE;
+                entry.setLaneTag(tag);
+            }
+            lanes.order.insert(tag);
+            int lane = entry.getBooking().getBookingType().ordinal();
+            lanes.lastTag[lane] = Math.max(lanes.lastTag[lane], tag);
+            previous = tag;
+        }
+
+        lanes.virtualTime = lanes.order.size() > 0 ? lanes.order.first() - 1 : 0;
+        salons.put(salonId, lanes);
+        return lanes;
+    }
+
+    private void dropOnRollback(UUID salonId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    salons.remove(salonId);
+                }
+            }
+        });
+    }
+
+    private static int shareOf(Salon salon, BookingType type) {
+        Integer online = salon.getOnlineBookingPercentage();
+        int onlineShare = Math.max(0, Math.min(100, online != null ? online : 70));
+        return type == BookingType.ONLINE ? onlineShare : 100 - onlineShare;
+    }
+
+    static long stride(int sharePercent) {
+        // A lane with no share still gets a (very sparse) slot instead of starving
+        return TAG_SCALE * 100 / Math.max(1, sharePercent);
+    }
+
+    private static final class SalonLanes {
+        final TagOrder order = new TagOrder();
+        final long[] lastTag = new long[BookingType.values().length];
+        long virtualTime;
+
+        long unique(long tag) {
+            while (order.contains(tag)) {
+                tag++;
+            }
+            return tag;
+        }
+
+        Placement insert(long tag) {
+            order.insert(tag);
+            return new Placement(order.rank(tag) + 1, tag);
+        }
+    }
+
+    /**
+     * Treap of distinct tags with subtree sizes: insert, remove and rank in
+     * expected O(log n).
+     */
+    static final class TagOrder {
+
+        private static final class Node {
+            final long tag;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            int size = 1;
+            Node left;
+            Node right;
+
+            Node(long tag) {
+                this.tag = tag;
+            }
+        }
+
+        private Node root;
+
+        int size() {
+            return size(root);
+        }
+
+        boolean contains(long tag) {
+            Node node = root;
+            while (node != null) {
+                if (tag == node.tag) {
+                    return true;
+                }
+                node = tag < node.tag ? node.left : node.right;
+            }
+            return false;
+        }
+
+        /** Number of tags smaller than the given one */
+        int rank(long tag) {
+            int rank = 0;
+            Node node = root;
+            while (node != null) {
+                if (tag <= node.tag) {
+                    node = node.left;
+                } else {
+                    rank += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return rank;
+        }
+
+        /** Smallest tag, or 0 when empty */
+        long first() {
+            Node node = root;
+            if (node == null) {
+                return 0;
+            }
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node.tag;
+        }
+
+        /** Largest tag, or 0 when empty */
+        long last() {
+            Node node = root;
+            if (node == null) {
+                return 0;
+            }
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node.tag;
+        }
+
+        void insert(long tag) {
+            Node[] parts = split(root, tag);
+            root = merge(merge(parts[0], new Node(tag)), parts[1]);
+        }
+
+        boolean remove(long tag) {
+            Node[] lower = split(root, tag);
+            Node[] upper = split(lower[1], tag + 1);
+            root = merge(lower[0], upper[1]);
+            return upper[0] != null;
+        }
+
+        /** Split into tags below the key and tags at or above it */
+        private static Node[] split(Node node, long key) {
+            if (node == null) {
+                return new Node[]{null, null};
+            }
+            if (node.tag < key) {
+                Node[] parts = split(node.right, key);
+                node.right = parts[0];
+                update(node);
+                return new Node[]{node, parts[1]};
+            }
+            Node[] parts = split(node.left, key);
+            node.left = parts[1];
+            update(node);
+            return new Node[]{parts[0], node};
+        }
+
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                update(left);
+                return left;
+            }
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+
+        private static void update(Node node) {
+            node.size = 1 + size(node.left) + size(node.right);
+        }
+
+        private static int size(Node node) {
+            return node != null ? node.size : 0;
+        }
+    }
+}
@@ -6,11 +6,22 @@ import com.salonplatform.enums.PaymentStatus;
 import com.salonplatform.enums.QueueStatus;
 import com.salonplatform.repository.*;
 import com.salonplatform.dto.*;
+import com.salonplatform.enums.QueueEventType;
+import com.salonplatform.enums.QueueOperationType;
+import com.salonplatform.journal.QueueEventJournal;
+import com.salonplatform.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,9 +32,25 @@ import java.util.stream.Collectors;
 public class QueueService {
 
     private final QueueRepository queueRepository;
+    private final QueueHistoryRepository queueHistoryRepository;
     private final BookingRepository bookingRepository;
+    private final BarberRepository barberRepository;
     private final NotificationService notificationService;
-    private final SimpMessagingTemplate messagingTemplate; // For WebSocket updates
+    private final QueueBroadcaster queueBroadcaster; // For WebSocket updates
+    private final QueueEventStreams queueEventStreams; // For SSE dashboards
+    private final QueueDeltaTracker queueDeltaTracker;
+    private final SalonQueueLanes salonQueueLanes;
+    private final QueueLanePolicy queueLanePolicy;
+    private final BarberAssignmentEngine barberAssignmentEngine;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final QueueSnapshotCache queueSnapshotCache;
+    private final QueueEventJournal queueEventJournal;
+    private final QueueSubscriptionRegistry queueSubscriptionRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Value("${app.queue.eta-drift-threshold-minutes:3}")
+    private int etaDriftThresholdMinutes;
 
     /**
      * Add booking to queue
@@ -33,15 +60,26 @@ public class QueueService {
         log.info("Adding booking {} to queue for salon {}",
                 booking.getId(), booking.getSalon().getId());
 
-        // Get current max position
-        Integer maxPosition = queueRepository
-                .findMaxPositionBySalon(booking.getSalon().getId())
-                .orElse(0);
-
-        int newPosition = maxPosition + 1;
+        return salonQueueLanes.execute(booking.getSalon().getId(), () -> appendToQueue(booking));
+    }
 
-        // Calculate estimated wait time
-        int estimatedWait = calculateEstimatedWait(booking.getSalon().getId(), newPosition);
+    private Queue appendToQueue(Booking booking) {
+        UUID salonId = booking.getSalon().getId();
+
+        // Slot in by lane so ONLINE and WALKIN bookings alternate in the salon's ratio
+        long waiting = queueRepository.countWaitingCustomers(salonId);
+        QueueLanePolicy.Placement placement = queueLanePolicy.place(
+                booking.getSalon(), booking.getBookingType(), waiting, () -> waitingEntries(salonId));
+        int newPosition = placement.position();
+
+        // Only the entries behind the new one move back
+        List<Queue> behind = newPosition <= waiting
+                ? queueRepository.findBySalonIdAndStatusAndPositionGreaterThanEqualOrderByPositionAsc(
+                        salonId, QueueStatus.WAITING, newPosition)
+                : List.of();
+        for (Queue queueEntry : behind) {
+            queueEntry.setPosition(queueEntry.getPosition() + 1);
+        }
 
         Queue queueEntry = Queue.builder()
                 .salon(booking.getSalon())
@@ -50,19 +88,39 @@ public class QueueService {
                 .customerName(booking.getCustomer().getFullName())
                 .serviceName(booking.getService().getName())
                 .position(newPosition)
-                .estimatedWaitMinutes(estimatedWait)
+                .laneTag(placement.tag())
+                .estimatedWaitMinutes(0)
                 .status(QueueStatus.WAITING)
-                .addedAt(LocalDateTime.now())
+                .addedAt(LocalDateTime.now(clock))
                 .build();
 
         queueEntry = queueRepository.save(queueEntry);
 
+        // Calculate estimated wait time across all available barbers
+        WaitTimeEstimator.WaitEstimate estimate = waitTimeEstimator.estimateSalon(salonId);
+        queueEntry.setEstimatedWaitMinutes(estimate.waitFor(queueEntry.getId()));
+        queueEntry = queueRepository.save(queueEntry);
+        barberAssignmentEngine.queued(queueEntry);
+        queueEventJournal.record(QueueEventType.ADDED, queueEntry);
+
+        for (Queue moved : behind) {
+            moved.setEstimatedWaitMinutes(estimate.waitFor(moved.getId()));
+            Booking movedBooking = moved.getBooking();
+            movedBooking.setQueuePosition(moved.getPosition());
+            movedBooking.setEstimatedStartTime(LocalDateTime.now(clock)
+                    .plusMinutes(moved.getEstimatedWaitMinutes()));
+            queueRepository.save(moved);
+            bookingRepository.save(movedBooking);
+            queueEventJournal.record(QueueEventType.REORDERED, moved);
+        }
+
         // Update booking with queue position
         booking.setQueuePosition(newPosition);
         bookingRepository.save(booking);
 
         // Broadcast queue update via WebSocket
-        broadcastQueueUpdate(booking.getSalon().getId());
+        queueSubscriptionRegistry.watchSalon(booking.getCustomer().getId().toString(), salonId);
+        broadcastQueueUpdate(salonId);
 
         log.info("Booking added to queue at position: {}", newPosition);
 
@@ -74,30 +132,56 @@ public class QueueService {
      */
     @Transactional
     public void reorderQueue(UUID salonId) {
+        salonQueueLanes.execute(salonId, () -> renumberQueue(salonId));
+    }
+
+    private void renumberQueue(UUID salonId) {
         log.info("Reordering queue for salon: {}", salonId);
 
-        List<Queue> queueList = queueRepository
-                .findBySalonIdAndStatusOrderByPositionAsc(salonId, QueueStatus.WAITING);
+        renumberQueue(salonId, waitingEntries(salonId), Set.of());
+    }
 
+    /**
+     * Number the waiting entries in the given order, refresh ETAs from one
+     * simulation and broadcast once. Entries in skipped are journaled as
+     * skipped rather than reordered.
+     */
+    private void renumberQueue(UUID salonId, List<Queue> queueList, Set<UUID> skipped) {
+        Set<UUID> moved = new HashSet<>();
         int position = 1;
         for (Queue queueEntry : queueList) {
             if (queueEntry.getPosition() != position) {
                 queueEntry.setPosition(position);
-                queueEntry.setEstimatedWaitMinutes(
-                        calculateEstimatedWait(salonId, position));
+                moved.add(queueEntry.getId());
+            }
+            position++;
+        }
+
+        // One simulation for the whole queue instead of one per entry
+        WaitTimeEstimator.WaitEstimate estimate = waitTimeEstimator.estimateSalon(salonId);
+
+        for (Queue queueEntry : queueList) {
+            int estimatedWait = estimate.waitFor(queueEntry.getId());
+            if (moved.contains(queueEntry.getId()) ||
+                    !Objects.equals(queueEntry.getEstimatedWaitMinutes(), estimatedWait)) {
+                queueEntry.setEstimatedWaitMinutes(estimatedWait);
 
                 // Update booking
                 Booking booking = queueEntry.getBooking();
-                booking.setQueuePosition(position);
+                booking.setQueuePosition(queueEntry.getPosition());
 
-                LocalDateTime newEstimatedTime = LocalDateTime.now()
+                LocalDateTime newEstimatedTime = LocalDateTime.now(clock)
                         .plusMinutes(queueEntry.getEstimatedWaitMinutes());
                 booking.setEstimatedStartTime(newEstimatedTime);
 
                 queueRepository.save(queueEntry);
                 bookingRepository.save(booking);
+
+                if (moved.contains(queueEntry.getId())) {
+                    queueEventJournal.record(skipped.contains(queueEntry.getId())
+                            ? QueueEventType.SKIPPED : QueueEventType.REORDERED, queueEntry);
+                }
             }
-            position++;
         }
 
         // Broadcast queue update
@@ -107,64 +191,195 @@ public class QueueService {
         notifyQueueChanges(salonId);
     }
 
+    /**
+     * Apply staff moves and skips in order (e.g. a group arriving late, a
+     * barber leaving) with a single renumber pass and a single broadcast.
+     * Returns the waiting queue in its new order.
+     */
+    @Transactional
+    public List<QueueResponse> applyOperations(UUID salonId, List<QueueOperation> operations) {
+        log.info("Applying {} queue operations for salon: {}", operations.size(), salonId);
+
+        return salonQueueLanes.execute(salonId, () -> {
+            List<Queue> queueList = new ArrayList<>(
+                    queueRepository.findActiveWithBooking(salonId, List.of(QueueStatus.WAITING)));
+            Map<UUID, Queue> byBooking = new HashMap<>();
+            for (Queue queueEntry : queueList) {
+                byBooking.put(queueEntry.getBooking().getId(), queueEntry);
+            }
+
+            Set<UUID> skipped = new HashSet<>();
+            for (QueueOperation operation : operations) {
+                Queue queueEntry = byBooking.get(operation.getBookingId());
+                if (queueEntry == null) {
+                    throw new BusinessException("Booking is not waiting in this queue: " + operation.getBookingId());
+                }
+                queueList.remove(queueEntry);
+
+                if (operation.getType() == QueueOperationType.SKIP) {
+                    queueList.add(queueEntry);
+                    skipped.add(queueEntry.getId());
+                } else {
+                    if (operation.getPosition() == null) {
+                        throw new BusinessException("Position is required to move a booking");
+                    }
+                    queueList.add(Math.min(operation.getPosition(), queueList.size() + 1) - 1, queueEntry);
+                    skipped.remove(queueEntry.getId());
+                }
+            }
+
+            // Lanes follow the order staff chose
+            queueLanePolicy.reorder(salonId, queueList);
+            renumberQueue(salonId, queueList, skipped);
+
+            for (Queue queueEntry : queueList) {
+                if (skipped.contains(queueEntry.getId())) {
+                    notificationService.sendMovedToEndOfQueue(queueEntry.getBooking());
+                }
+            }
+
+            return queueList.stream()
+                    .map(this::toQueueResponse)
+                    .collect(Collectors.toList());
+        });
+    }
+
     /**
      * Mark booking as in-service
      */
     @Transactional
     public void markInService(UUID bookingId) {
-        Queue queueEntry = queueRepository.findByBookingId(bookingId)
+        UUID salonId = queueRepository.findSalonIdByBookingId(bookingId)
                 .orElseThrow(() -> new RuntimeException("Queue entry not found"));
 
-        queueEntry.setStatus(QueueStatus.IN_SERVICE);
-        queueRepository.save(queueEntry);
+        salonQueueLanes.execute(salonId, () -> {
+            // Read under the lane, so a change committed while waiting for it is seen
+            Queue queueEntry = queueRepository.findByBookingId(bookingId)
+                    .orElseThrow(() -> new RuntimeException("Queue entry not found"));
+            queueLanePolicy.started(queueEntry);
+            barberAssignmentEngine.started(queueEntry);
+            queueEntry.setStatus(QueueStatus.IN_SERVICE);
+            queueRepository.save(queueEntry);
+            queueEventJournal.record(QueueEventType.IN_SERVICE, queueEntry);
 
-        broadcastQueueUpdate(queueEntry.getSalon().getId());
+            // Waiting entries must stay numbered 1..n: placement ranks against them
+            renumberQueue(salonId);
+        });
     }
 
     /**
-     * Remove from queue (completed/cancelled/no-show)
+     * Remove from queue, archiving the entry with how it left
+     * (COMPLETED, CANCELLED or NO_SHOW)
      */
     @Transactional
-    public void removeFromQueue(UUID bookingId) {
+    public void removeFromQueue(UUID bookingId, QueueStatus finalStatus) {
         log.info("Removing booking {} from queue", bookingId);
 
-        Optional<Queue> queueEntryOpt = queueRepository.findByBookingId(bookingId);
+        Optional<UUID> salonIdOpt = queueRepository.findSalonIdByBookingId(bookingId);
 
-        if (queueEntryOpt.isPresent()) {
-            Queue queueEntry = queueEntryOpt.get();
-            UUID salonId = queueEntry.getSalon().getId();
+        if (salonIdOpt.isPresent()) {
+            UUID salonId = salonIdOpt.get();
 
-            queueEntry.setStatus(QueueStatus.COMPLETED);
-            queueRepository.save(queueEntry);
+            salonQueueLanes.execute(salonId, () -> {
+                // Another removal may have won the lane first
+                Optional<Queue> queueEntryOpt = queueRepository.findByBookingId(bookingId);
+                if (queueEntryOpt.isEmpty()) {
+                    return;
+                }
+                Queue queueEntry = queueEntryOpt.get();
+                queueLanePolicy.removed(queueEntry);
+                barberAssignmentEngine.finished(queueEntry);
 
-            // Reorder remaining queue
-            reorderQueue(salonId);
+                // Keep only live entries in the queue table
+                queueHistoryRepository.save(QueueHistory.from(queueEntry, finalStatus, LocalDateTime.now(clock)));
+                queueRepository.delete(queueEntry);
+                queueEventJournal.record(QueueEventType.COMPLETED, queueEntry);
+
+                // Reorder remaining queue
+                renumberQueue(salonId);
+            });
 
             log.info("Booking removed from queue and queue reordered");
         }
     }
 
+    /**
+     * Remove many bookings from one salon's queue (e.g. overdue no-shows),
+     * archiving them in one batch and renumbering the queue once
+     */
+    @Transactional
+    public void removeFromQueue(UUID salonId, Collection<UUID> bookingIds, QueueStatus finalStatus) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+
+        int removed = salonQueueLanes.execute(salonId, () -> {
+            List<Queue> entries = queueRepository.findByBookingIdIn(bookingIds);
+            if (entries.isEmpty()) {
+                return 0;
+            }
+
+            for (Queue queueEntry : entries) {
+                queueLanePolicy.removed(queueEntry);
+                barberAssignmentEngine.finished(queueEntry);
+                queueEventJournal.record(QueueEventType.COMPLETED, queueEntry);
+            }
+
+            LocalDateTime archivedAt = LocalDateTime.now(clock);
+            queueHistoryRepository.saveAll(entries.stream()
+                    .map(queueEntry -> QueueHistory.from(queueEntry, finalStatus, archivedAt))
+                    .toList());
+            queueRepository.deleteByIdIn(entries.stream().map(Queue::getId).toList());
+
+            renumberQueue(salonId);
+            return entries.size();
+        });
+
+        log.info("Removed {} bookings from queue of salon {}", removed, salonId);
+    }
+
     /**
      * Get current queue for salon
      */
     public List<QueueResponse> getSalonQueue(UUID salonId) {
-        List<Queue> queue = queueRepository.findBySalonIdOrderByPositionAsc(salonId);
+        return cachedQueue(salonId).getQueue();
+    }
 
-        return queue.stream()
-                .filter(q -> q.getStatus() == QueueStatus.WAITING ||
-                        q.getStatus() == QueueStatus.IN_SERVICE)
-                .map(this::toQueueResponse)
-                .collect(Collectors.toList());
+    /**
+     * Versioned queue snapshot for clients resyncing after a missed delta
+     */
+    public QueueSnapshotResponse getSalonQueueSnapshot(UUID salonId) {
+        return queueDeltaTracker.snapshot(salonId, () -> loadSalonQueue(salonId));
     }
 
     /**
-     * Get customer's position in queue
+     * Get customer's position in queue. Answered from the cached salon
+     * queues; on a miss the entry is read from the database and its salon's
+     * queue is cached, so the customer's next polls stay in memory.
      */
     public QueueResponse getCustomerQueueStatus(UUID bookingId) {
-        Queue queueEntry = queueRepository.findByBookingId(bookingId)
-                .orElseThrow(() -> new RuntimeException("Not in queue"));
+        Optional<QueueResponse> cached = queueSnapshotCache.findByBooking(bookingId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
 
-        return toQueueResponse(queueEntry);
+        Optional<Queue> queueEntry = queueRepository.findByBookingId(bookingId);
+        if (queueEntry.isPresent()) {
+            Queue entry = queueEntry.get();
+            if (WaitTimeEstimator.ACTIVE_STATUSES.contains(entry.getStatus())) {
+                cachedQueue(entry.getSalon().getId());
+                Optional<QueueResponse> loaded = queueSnapshotCache.findByBooking(bookingId);
+                if (loaded.isPresent()) {
+                    return loaded.get();
+                }
+            }
+            return toQueueResponse(entry);
+        }
+
+        // Finished entries live in queue history
+        return queueHistoryRepository.findFirstByBookingIdOrderByArchivedAtDesc(bookingId)
+                .map(this::toQueueResponse)
+                .orElseThrow(() -> new RuntimeException("Not in queue"));
     }
 
     /**
@@ -198,33 +413,41 @@ public class QueueService {
     public void handleLateArrival(UUID bookingId) {
         log.info("Handling late arrival for booking: {}", bookingId);
 
-        Queue queueEntry = queueRepository.findByBookingId(bookingId)
+        UUID salonId = queueRepository.findSalonIdByBookingId(bookingId)
                 .orElseThrow(() -> new RuntimeException("Not in queue"));
 
-        UUID salonId = queueEntry.getSalon().getId();
+        salonQueueLanes.execute(salonId, () -> moveToEndOfQueue(queueRepository.findByBookingId(bookingId)
+                .orElseThrow(() -> new RuntimeException("Not in queue")), salonId));
+    }
 
+    private void moveToEndOfQueue(Queue queueEntry, UUID salonId) {
         // Mark as skipped temporarily
         queueEntry.setStatus(QueueStatus.SKIPPED);
         queueRepository.save(queueEntry);
 
         // Reorder queue (others move up)
-        reorderQueue(salonId);
+        renumberQueue(salonId);
 
         // Add back to end of queue
-        Integer maxPosition = queueRepository
-                .findMaxPositionBySalon(salonId)
-                .orElse(0);
+        QueueLanePolicy.Placement placement = queueLanePolicy.moveToEnd(
+                salonId, queueEntry, () -> waitingEntries(salonId));
+        int newPosition = placement.position();
 
-        queueEntry.setPosition(maxPosition + 1);
+        queueEntry.setPosition(newPosition);
+        queueEntry.setLaneTag(placement.tag());
         queueEntry.setStatus(QueueStatus.WAITING);
-        queueEntry.setEstimatedWaitMinutes(
-                calculateEstimatedWait(salonId, maxPosition + 1));
         queueRepository.save(queueEntry);
 
+        queueEntry.setEstimatedWaitMinutes(waitTimeEstimator
+                .estimateSalon(salonId)
+                .waitFor(queueEntry.getId()));
+        queueRepository.save(queueEntry);
+        queueEventJournal.record(QueueEventType.SKIPPED, queueEntry);
+
         // Update booking
         Booking booking = queueEntry.getBooking();
-        booking.setQueuePosition(maxPosition + 1);
-        booking.setEstimatedStartTime(LocalDateTime.now()
+        booking.setQueuePosition(newPosition);
+        booking.setEstimatedStartTime(LocalDateTime.now(clock)
                 .plusMinutes(queueEntry.getEstimatedWaitMinutes()));
         bookingRepository.save(booking);
 
@@ -233,81 +456,266 @@ public class QueueService {
 
         broadcastQueueUpdate(salonId);
 
-        log.info("Late arrival moved to position: {}", maxPosition + 1);
+        log.info("Late arrival moved to position: {}", newPosition);
     }
 
     /**
      * Get queue statistics for salon dashboard
      */
     public QueueStatsResponse getQueueStats(UUID salonId) {
-        List<Queue> allQueue = queueRepository.findBySalonIdOrderByPositionAsc(salonId);
-
-        long waiting = allQueue.stream()
-                .filter(q -> q.getStatus() == QueueStatus.WAITING)
-                .count();
-
-        long inService = allQueue.stream()
-                .filter(q -> q.getStatus() == QueueStatus.IN_SERVICE)
-                .count();
-
-        int totalWaitMinutes = allQueue.stream()
-                .filter(q -> q.getStatus() == QueueStatus.WAITING)
-                .mapToInt(Queue::getEstimatedWaitMinutes)
-                .sum();
-
-        return QueueStatsResponse.builder()
-                .totalInQueue(waiting)
-                .currentlyServing(inService)
-                .estimatedTotalWaitTime(totalWaitMinutes)
-                .averageWaitTime(waiting > 0 ? totalWaitMinutes / waiting : 0)
-                .build();
+        return cachedQueue(salonId).getStats();
     }
 
-    // Helper methods
+    /**
+     * Publish updates skipped while the salon had no subscribers
+     */
+    @EventListener
+    @Transactional(readOnly = true)
+    public void onQueueSubscribed(QueueSubscriptionRegistry.QueueSubscribedEvent event) {
+        UUID salonId = event.salonId();
+        salonQueueLanes.execute(salonId, () -> broadcastQueueUpdate(salonId));
+    }
 
-    private int calculateEstimatedWait(UUID salonId, int position) {
-        if (position <= 1) {
+    /**
+     * Keep broadcasting the salons a customer waits in while they watch their position
+     */
+    @EventListener
+    @Transactional(readOnly = true)
+    public void onPositionSubscribed(QueueSubscriptionRegistry.PositionSubscribedEvent event) {
+        UUID customerId;
+        try {
+            customerId = UUID.fromString(event.user());
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        for (UUID salonId : queueRepository.findSalonIdsByCustomer(customerId, WaitTimeEstimator.ACTIVE_STATUSES)) {
+            queueSubscriptionRegistry.watchSalon(event.user(), salonId);
+        }
+    }
+
+    /**
+     * Move finished entries still in the queue table (rows written before
+     * removal started archiving them) to queue history, one chunk per call.
+     * Returns the number of entries moved.
+     */
+    @Transactional
+    public int archiveTerminalEntries(int chunkSize) {
+        List<UUID> queueIds = queueRepository.findIdsByStatusIn(
+                List.of(QueueStatus.COMPLETED), PageRequest.of(0, chunkSize));
+
+        if (queueIds.isEmpty()) {
             return 0;
         }
 
-        List<Queue> ahead = queueRepository.findBySalonIdOrderByPositionAsc(salonId)
-                .stream()
-                .filter(q -> q.getPosition() < position &&
-                        (q.getStatus() == QueueStatus.WAITING ||
-                                q.getStatus() == QueueStatus.IN_SERVICE))
-                .collect(Collectors.toList());
+        queueHistoryRepository.copyFromQueue(queueIds, LocalDateTime.now(clock));
+        queueRepository.deleteByIdIn(queueIds);
 
-        int totalMinutes = 0;
-        for (Queue q : ahead) {
-            if (q.getStatus() == QueueStatus.IN_SERVICE) {
-                // Estimate remaining time for current service
-                Booking booking = q.getBooking();
-                if (booking.getActualStartTime() != null) {
-                    long elapsed = java.time.Duration
-                            .between(booking.getActualStartTime(), LocalDateTime.now())
-                            .toMinutes();
-                    int remaining = Math.max(0,
-                            booking.getEstimatedDurationMinutes() - (int)elapsed);
-                    totalMinutes += remaining;
-                }
-            } else {
-                totalMinutes += q.getBooking().getEstimatedDurationMinutes();
+        log.info("Archived {} finished queue entries", queueIds.size());
+        return queueIds.size();
+    }
+
+    /**
+     * Reload cached queues of every active or cached salon (safety net for
+     * the event-driven cache)
+     */
+    @Transactional(readOnly = true)
+    public void refreshQueueCaches() {
+        long loadStartedAt = queueSnapshotCache.beginLoad();
+
+        Map<UUID, List<QueueResponse>> bySalon = new HashMap<>();
+        for (Queue queueEntry : queueRepository.findAllActiveWithBooking(WaitTimeEstimator.ACTIVE_STATUSES)) {
+            bySalon.computeIfAbsent(queueEntry.getSalon().getId(), id -> new ArrayList<>())
+                    .add(toQueueResponse(queueEntry));
+        }
+
+        // Salons whose queue emptied since the last refresh
+        for (UUID salonId : queueSnapshotCache.cachedSalonIds()) {
+            bySalon.putIfAbsent(salonId, List.of());
+        }
+
+        bySalon.forEach((salonId, queue) -> queueSnapshotCache.refresh(salonId, queue, loadStartedAt));
+
+        log.debug("Refreshed queue cache for {} salons", bySalon.size());
+    }
+
+    /**
+     * Recompute ETAs of every active salon from elapsed service time and
+     * push only the salons where some ETA drifted by at least the
+     * threshold, e.g. because a service overran. One pass over all active
+     * salons (two queries) finds the drifted ones; each of those is re-read
+     * and updated under its lane in its own transaction, so only one lane
+     * is held at a time and no update rests on entries read before the
+     * lane. Returns the number of entries updated.
+     */
+    public int refreshEstimates() {
+        Set<UUID> drifted = transactionTemplate.execute(status -> driftedSalons(LocalDateTime.now(clock)));
+        if (drifted == null || drifted.isEmpty()) {
+            return 0;
+        }
+
+        int updated = 0;
+        for (UUID salonId : drifted) {
+            try {
+                Integer refreshed = transactionTemplate.execute(status ->
+                        salonQueueLanes.execute(salonId, () -> refreshEstimates(salonId)));
+                updated += refreshed != null ? refreshed : 0;
+            } catch (BusinessException e) {
+                // Salon busy with a mutation, which refreshes its ETAs anyway
+                log.debug("Skipped ETA refresh for busy salon: {}", salonId);
             }
         }
 
-        return totalMinutes;
+        if (updated > 0) {
+            log.debug("Refreshed {} drifted ETAs across {} salons", updated, drifted.size());
+        }
+        return updated;
+    }
+
+    /**
+     * Salons with a waiting entry whose ETA drifted past the threshold
+     */
+    private Set<UUID> driftedSalons(LocalDateTime now) {
+        Map<UUID, List<Queue>> bySalon = new HashMap<>();
+        for (Queue queueEntry : queueRepository.findAllActiveWithBooking(WaitTimeEstimator.ACTIVE_STATUSES)) {
+            bySalon.computeIfAbsent(queueEntry.getSalon().getId(), id -> new ArrayList<>()).add(queueEntry);
+        }
+        bySalon.values().removeIf(entries -> entries.stream()
+                .noneMatch(entry -> entry.getStatus() == QueueStatus.WAITING));
+        if (bySalon.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<UUID, List<Barber>> barbersBySalon = new HashMap<>();
+        for (Barber barber : barberRepository.findBySalonIdInAndIsAvailableTrue(bySalon.keySet())) {
+            barbersBySalon.computeIfAbsent(barber.getSalon().getId(), id -> new ArrayList<>()).add(barber);
+        }
+
+        Set<UUID> drifted = new LinkedHashSet<>();
+        bySalon.forEach((salonId, entries) -> {
+            WaitTimeEstimator.WaitEstimate estimate = waitTimeEstimator.estimate(
+                    entries, barbersBySalon.getOrDefault(salonId, List.of()), now);
+            if (entries.stream().anyMatch(entry -> drifted(entry, estimate, now))) {
+                drifted.add(salonId);
+            }
+        });
+        return drifted;
+    }
+
+    /**
+     * Re-estimate one salon from its current queue, under its lane
+     */
+    private int refreshEstimates(UUID salonId) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<Queue> entries = queueRepository.findActiveWithBooking(salonId, WaitTimeEstimator.ACTIVE_STATUSES);
+        WaitTimeEstimator.WaitEstimate estimate = waitTimeEstimator.estimate(
+                entries, barberRepository.findBySalonIdAndIsAvailableTrue(salonId), now);
+
+        int updated = 0;
+        for (Queue queueEntry : entries) {
+            if (!drifted(queueEntry, estimate, now)) {
+                continue;
+            }
+            int estimatedWait = estimate.waitFor(queueEntry.getId());
+            queueEntry.setEstimatedWaitMinutes(estimatedWait);
+            Booking booking = queueEntry.getBooking();
+            booking.setEstimatedStartTime(now.plusMinutes(estimatedWait));
+            queueRepository.save(queueEntry);
+            bookingRepository.save(booking);
+            updated++;
+        }
+
+        if (updated > 0) {
+            broadcastQueueUpdate(salonId);
+        }
+        return updated;
+    }
+
+    private boolean drifted(Queue queueEntry, WaitTimeEstimator.WaitEstimate estimate, LocalDateTime now) {
+        if (queueEntry.getStatus() != QueueStatus.WAITING) {
+            return false;
+        }
+        LocalDateTime previousStart = queueEntry.getBooking().getEstimatedStartTime();
+        return previousStart == null || Math.abs(Duration.between(previousStart,
+                now.plusMinutes(estimate.waitFor(queueEntry.getId()))).toMinutes()) >= etaDriftThresholdMinutes;
+    }
+
+    // Helper methods
+
+    private QueueSnapshotCache.CachedQueue cachedQueue(UUID salonId) {
+        Optional<QueueSnapshotCache.CachedQueue> cached = queueSnapshotCache.get(salonId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        // A queue change committing during the load wins over what was loaded
+        long loadStartedAt = queueSnapshotCache.beginLoad();
+        return queueSnapshotCache.refresh(salonId, loadSalonQueue(salonId), loadStartedAt);
+    }
+
+    private List<Queue> waitingEntries(UUID salonId) {
+        return queueRepository.findBySalonIdAndStatusOrderByPositionAsc(salonId, QueueStatus.WAITING);
+    }
+
+    private List<QueueResponse> loadSalonQueue(UUID salonId) {
+        return queueRepository.findActiveWithBooking(salonId, WaitTimeEstimator.ACTIVE_STATUSES)
+                .stream()
+                .map(this::toQueueResponse)
+                .collect(Collectors.toList());
     }
 
     private void broadcastQueueUpdate(UUID salonId) {
-        List<QueueResponse> queueData = getSalonQueue(salonId);
+        if (!queueSubscriptionRegistry.shouldBroadcast(salonId)) {
+            // Nobody is watching: skip the load, reads and the first subscriber catch up
+            queueSnapshotCache.evict(salonId);
+            queueDeltaTracker.markStale(salonId);
+            return;
+        }
+
+        List<Queue> entries = queueRepository.findActiveWithBooking(salonId, WaitTimeEstimator.ACTIVE_STATUSES);
+        List<QueueResponse> queueData = entries.stream()
+                .map(this::toQueueResponse)
+                .collect(Collectors.toList());
+
+        // Serve reads from this state once the transaction commits
+        queueSnapshotCache.publish(salonId, queueData);
+
+        // Send only what changed since the last version to subscribers of this salon,
+        // and each affected customer their own position. Sent once the transaction
+        // commits, so a rollback never reaches clients; the salon lane is released
+        // only after commit callbacks, so deltas still go out in lane order.
+        Map<UUID, UUID> customers = customersByQueueId(entries);
+        afterCommit(() -> {
+            QueueDeltaResponse delta = queueDeltaTracker.publish(salonId, queueData, d -> {
+                queueBroadcaster.sendQueueDelta(salonId, d);
+                queueBroadcaster.sendPositionUpdates(salonId, d, customers);
+                queueEventStreams.publish(salonId, queueData, d.getVersion());
+            });
+
+            if (delta != null) {
+                log.debug("Broadcasted queue delta v{} for salon: {}", delta.getVersion(), salonId);
+            }
+        });
+    }
 
-        // Send via WebSocket to all subscribers of this salon
-        messagingTemplate.convertAndSend(
-                "/topic/salon/" + salonId + "/queue",
-                queueData
-        );
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        log.debug("Broadcasted queue update for salon: {}", salonId);
+    private Map<UUID, UUID> customersByQueueId(List<Queue> entries) {
+        Map<UUID, UUID> customers = new HashMap<>();
+        for (Queue queueEntry : entries) {
+            customers.put(queueEntry.getId(), queueEntry.getBooking().getCustomer().getId());
+        }
+        return customers;
     }
 
     private void notifyQueueChanges(UUID salonId) {
@@ -324,6 +732,25 @@ public class QueueService {
         }
     }
 
+    private QueueResponse toQueueResponse(QueueHistory history) {
+        Booking booking = history.getBooking();
+
+        return QueueResponse.builder()
+                .queueId(history.getQueueId())
+                .bookingId(booking.getId())
+                .customerName(history.getCustomerName())
+                .serviceName(history.getServiceName())
+                .barberName(history.getBarber() != null ? history.getBarber().getName() : "Any")
+                .position(history.getPosition())
+                .estimatedWaitMinutes(history.getEstimatedWaitMinutes())
+                .estimatedStartTime(booking.getEstimatedStartTime())
+                .status(history.getStatus().toString())
+                .bookingType(booking.getBookingType().toString())
+                .isPaid(booking.getPaymentStatus() == PaymentStatus.PAID)
+                .addedAt(history.getAddedAt())
+                .build();
+    }
+
     private QueueResponse toQueueResponse(Queue queue) {
         Booking booking = queue.getBooking();
 
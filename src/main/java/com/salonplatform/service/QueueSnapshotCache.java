@@ -0,0 +1,204 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueResponse;
+import com.salonplatform.dto.QueueStatsResponse;
+import com.salonplatform.enums.QueueStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-salon cache of the active queue and its dashboard statistics.
+ * Refreshed by queue events after commit, with the scheduler's minute
+ * tick as a safety net, so queue reads never touch the database.
+ *
+ * Entries of the cached queues are also indexed by booking id, so the
+ * position checks customers poll while waiting are answered from memory.
+ * A booking is in the index exactly while its salon's cached queue holds it.
+ *
+ * Every store and drop takes the next number of a change counter. A queue
+ * loaded from the database is only cached if its salon did not change
+ * since the load started, so a slow load never replaces newer state.
+ */
+@Component
+public class QueueSnapshotCache {
+
+    private final Map<UUID, CachedQueue> salons = new ConcurrentHashMap<>();
+    private final Map<UUID, QueueResponse> bookings = new ConcurrentHashMap<>();
+    // Change number of each salon's last drop
+    private final Map<UUID, Long> droppedAt = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+
+    public Optional<CachedQueue> get(UUID salonId) {
+        return Optional.ofNullable(salons.get(salonId));
+    }
+
+    /**
+     * Active queue entry of a booking, if its salon's queue is cached
+     */
+    public Optional<QueueResponse> findByBooking(UUID bookingId) {
+        return Optional.ofNullable(bookings.get(bookingId));
+    }
+
+    /**
+     * Store a freshly loaded queue. Inside a transaction the value only
+     * becomes visible once it commits; a rollback evicts the salon so the
+     * next read reloads committed state. Either happens before the salon's
+     * queue lane is released.
+     */
+    public void publish(UUID salonId, List<QueueResponse> queue) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(salonId, queue);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    put(salonId, queue);
+                } else {
+                    drop(salonId);
+                }
+            }
+
+            @Override
+            public int getOrder() {
+                return SalonQueueLanes.RELEASE_ORDER - 1;
+            }
+        });
+    }
+
+    /**
+     * Drop the salon so the next read loads it. Inside a transaction the
+     * salon is dropped again on completion, in case a read cached the
+     * pre-commit state meanwhile.
+     */
+    public void evict(UUID salonId) {
+        drop(salonId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    drop(salonId);
+                }
+
+                @Override
+                public int getOrder() {
+                    return SalonQueueLanes.RELEASE_ORDER - 1;
+                }
+            });
+        }
+    }
+
+    /**
+     * Mark the start of a database load, to pass to refresh with its result
+     */
+    public long beginLoad() {
+        return changes.get();
+    }
+
+    /**
+     * Cache a queue loaded from the database, unless the salon was stored
+     * or dropped after the load started (beginLoad): the load may predate
+     * that change. Returns the queue now cached, or the loaded one uncached
+     * if the salon was dropped meanwhile.
+     */
+    public CachedQueue refresh(UUID salonId, List<QueueResponse> queue, long loadStartedAt) {
+        CachedQueue[] result = new CachedQueue[1];
+        salons.compute(salonId, (id, existing) -> {
+            if (existing != null && existing.getChange() > loadStartedAt) {
+                result[0] = existing;
+                return existing;
+            }
+            if (droppedAt.getOrDefault(id, 0L) > loadStartedAt) {
+                result[0] = build(queue, loadStartedAt);
+                return existing;
+            }
+            result[0] = build(queue, changes.incrementAndGet());
+            return reindex(existing, result[0]);
+        });
+        return result[0];
+    }
+
+    public Set<UUID> cachedSalonIds() {
+        return new HashSet<>(salons.keySet());
+    }
+
+    private void put(UUID salonId, List<QueueResponse> queue) {
+        salons.compute(salonId, (id, existing) -> reindex(existing, build(queue, changes.incrementAndGet())));
+    }
+
+    private void drop(UUID salonId) {
+        salons.compute(salonId, (id, existing) -> {
+            droppedAt.put(id, changes.incrementAndGet());
+            return reindex(existing, null);
+        });
+    }
+
+    /**
+     * Swap a salon's entries in the booking index; runs inside the salon's
+     * compute so updates of one salon never interleave. New entries go in
+     * before old ones leave, so a booking still queued is never missing.
+     */
+    private CachedQueue reindex(CachedQueue previous, CachedQueue next) {
+        Set<UUID> current = new HashSet<>();
+        if (next != null) {
+            for (QueueResponse entry : next.getQueue()) {
+                bookings.put(entry.getBookingId(), entry);
+                current.add(entry.getBookingId());
+            }
+        }
+        if (previous != null) {
+            for (QueueResponse entry : previous.getQueue()) {
+                if (!current.contains(entry.getBookingId())) {
+                    bookings.remove(entry.getBookingId(), entry);
+                }
+            }
+        }
+        return next;
+    }
+
+    private CachedQueue build(List<QueueResponse> queue, long change) {
+        return new CachedQueue(List.copyOf(queue), statsOf(queue), change);
+    }
+
+    static QueueStatsResponse statsOf(List<QueueResponse> queue) {
+        long waiting = 0;
+        long inService = 0;
+        int totalWaitMinutes = 0;
+
+        for (QueueResponse entry : queue) {
+            if (QueueStatus.WAITING.name().equals(entry.getStatus())) {
+                waiting++;
+                totalWaitMinutes += entry.getEstimatedWaitMinutes() != null
+                        ? entry.getEstimatedWaitMinutes() : 0;
+            } else if (QueueStatus.IN_SERVICE.name().equals(entry.getStatus())) {
+                inService++;
+            }
+        }
+
+        return QueueStatsResponse.builder()
+                .totalInQueue(waiting)
+                .currentlyServing(inService)
+                .estimatedTotalWaitTime(totalWaitMinutes)
+                .averageWaitTime(waiting > 0 ? totalWaitMinutes / waiting : 0)
+                .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedQueue {
+        private final List<QueueResponse> queue;
+        private final QueueStatsResponse stats;
+        // Change number it was stored under
+        private final long change;
+    }
+}
@@ -0,0 +1,255 @@
+package com.salonplatform.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Subscriber counts per STOMP destination on this node, fed by session
+ * subscribe, unsubscribe and disconnect events. Queue broadcasts for
+ * salons nobody is watching are skipped and caught up on first subscribe.
+ * A salon also counts as watched while one of its waiting customers is
+ * subscribed to their personal position channel, or while a Server-Sent
+ * Event stream of the salon is open.
+ *
+ * With the broker relay, subscribers may be connected to other nodes, so
+ * every broadcast goes out.
+ */
+@Component
+@Slf4j
+public class QueueSubscriptionRegistry {
+
+    private static final String SALON_TOPIC_PREFIX = "/topic/salon/";
+    private static final String USER_PREFIX = "/user/";
+    private static final String USER_POSITION_DESTINATION = "/user" + QueueBroadcaster.POSITION_DESTINATION;
+
+    private final Map<String, AtomicInteger> destinations = new ConcurrentHashMap<>();
+    // session id -> subscription id -> destination
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Set<UUID> deferredSalons = ConcurrentHashMap.newKeySet();
+    // user -> salons whose queue they wait in, while subscribed to their position
+    private final Map<String, Set<UUID>> watchedSalons = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> salonWatchers = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicInteger> salonStreams = new ConcurrentHashMap<>();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean skipIdle;
+    private final Counter skipped;
+    private final Counter flushed;
+
+    public QueueSubscriptionRegistry(ApplicationEventPublisher eventPublisher,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.websocket.skip-idle-broadcasts:true}") boolean skipIdleBroadcasts,
+                                     @Value("${app.websocket.broker.mode:simple}") String brokerMode) {
+        this.eventPublisher = eventPublisher;
+        this.skipIdle = skipIdleBroadcasts && !"relay".equalsIgnoreCase(brokerMode);
+        this.skipped = Counter.builder("queue.broadcasts")
+                .tag("outcome", "skipped")
+                .description("Queue broadcasts skipped because the salon had no subscribers")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("queue.broadcasts")
+                .tag("outcome", "deferred")
+                .description("Skipped queue broadcasts caught up when a subscriber arrived")
+                .register(meterRegistry);
+        Gauge.builder("queue.subscriptions.destinations", destinations, Map::size)
+                .description("Destinations with at least one subscriber on this node")
+                .register(meterRegistry);
+    }
+
+    /** Published when the first subscriber arrives for a salon with skipped updates. */
+    public record QueueSubscribedEvent(UUID salonId) {
+    }
+
+    /** Published when a user subscribes to their personal position channel. */
+    public record PositionSubscribedEvent(String user) {
+    }
+
+    /**
+     * Whether a queue update for the salon should be broadcast. When nobody
+     * is subscribed the update is skipped and remembered for the first
+     * subscriber.
+     */
+    public boolean shouldBroadcast(UUID salonId) {
+        if (!skipIdle || hasQueueSubscribers(salonId)) {
+            return true;
+        }
+        deferredSalons.add(salonId);
+        // A subscriber may have arrived between the check and the deferral
+        if (hasQueueSubscribers(salonId) && deferredSalons.remove(salonId)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    public boolean hasQueueSubscribers(UUID salonId) {
+        String topic = QueueBroadcaster.queueTopic(salonId);
+        return hasSubscribers(topic) || hasSubscribers(topic + QueueBroadcaster.CBOR_SUFFIX)
+                || salonWatchers.containsKey(salonId) || salonStreams.containsKey(salonId);
+    }
+
+    /**
+     * Count an SSE stream of the salon. The first one catches up updates
+     * skipped while nobody was watching.
+     */
+    public void streamOpened(UUID salonId) {
+        int count = salonStreams.computeIfAbsent(salonId, id -> new AtomicInteger()).incrementAndGet();
+        if (count == 1 && deferredSalons.remove(salonId)) {
+            flushed.increment();
+            eventPublisher.publishEvent(new QueueSubscribedEvent(salonId));
+        }
+    }
+
+    public void streamClosed(UUID salonId) {
+        salonStreams.computeIfPresent(salonId, (id, count) ->
+                count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    public boolean hasPositionSubscriber(String user) {
+        return hasSubscribers(positionKey(user));
+    }
+
+    /**
+     * Keep broadcasting the salon while the user is subscribed to their
+     * position. No-op when the user has no position subscription.
+     */
+    public void watchSalon(String user, UUID salonId) {
+        if (subscriberCount(positionKey(user)) == 0) {
+            return;
+        }
+        watchedSalons.compute(user, (u, salons) -> {
+            Set<UUID> watched = salons != null ? salons : ConcurrentHashMap.newKeySet();
+            if (watched.add(salonId)) {
+                salonWatchers.computeIfAbsent(salonId, id -> new AtomicInteger()).incrementAndGet();
+            }
+            return watched;
+        });
+    }
+
+    public boolean hasSubscribers(String destination) {
+        return !skipIdle || subscriberCount(destination) > 0;
+    }
+
+    public int subscriberCount(String destination) {
+        AtomicInteger count = destinations.get(destination);
+        return count != null ? count.get() : 0;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+
+        String positionUser = null;
+        if (USER_POSITION_DESTINATION.equals(destination)) {
+            if (event.getUser() == null) {
+                return;
+            }
+            // Count per user; the broker resolves the destination per session
+            positionUser = event.getUser().getName();
+            destination = positionKey(positionUser);
+        }
+
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+
+        int count = destinations.computeIfAbsent(destination, d -> new AtomicInteger()).incrementAndGet();
+        if (count == 1 && positionUser != null) {
+            eventPublisher.publishEvent(new PositionSubscribedEvent(positionUser));
+        } else if (count == 1) {
+            UUID salonId = salonIdOf(destination);
+            if (salonId != null && deferredSalons.remove(salonId)) {
+                flushed.increment();
+                log.debug("First subscriber for salon {}, catching up skipped queue updates", salonId);
+                eventPublisher.publishEvent(new QueueSubscribedEvent(salonId));
+            }
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            decrement(destination);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // Disconnect can be reported more than once per session
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    private void decrement(String destination) {
+        AtomicInteger left = destinations.computeIfPresent(destination, (d, count) ->
+                count.decrementAndGet() <= 0 ? null : count);
+
+        if (left == null && destination.startsWith(USER_PREFIX)
+                && destination.endsWith(QueueBroadcaster.POSITION_DESTINATION)) {
+            unwatchSalons(destination.substring(USER_PREFIX.length(),
+                    destination.length() - QueueBroadcaster.POSITION_DESTINATION.length()));
+        }
+    }
+
+    private void unwatchSalons(String user) {
+        Set<UUID> salons = watchedSalons.remove(user);
+        if (salons == null) {
+            return;
+        }
+        for (UUID salonId : salons) {
+            salonWatchers.computeIfPresent(salonId, (id, count) ->
+                    count.decrementAndGet() <= 0 ? null : count);
+        }
+    }
+
+    private static String positionKey(String user) {
+        return USER_PREFIX + user + QueueBroadcaster.POSITION_DESTINATION;
+    }
+
+    private static UUID salonIdOf(String destination) {
+        if (!destination.startsWith(SALON_TOPIC_PREFIX)) {
+            return null;
+        }
+        int end = destination.indexOf('/', SALON_TOPIC_PREFIX.length());
+        if (end < 0 || !destination.startsWith("/queue", end)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(destination.substring(SALON_TOPIC_PREFIX.length(), end));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
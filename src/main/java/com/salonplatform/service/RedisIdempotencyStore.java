@@ -0,0 +1,69 @@
+package com.salonplatform.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Idempotency keys in Redis, shared by every app node. A claim is a
+ * SET NX with the TTL, so only one node runs a given request; Redis
+ * expires entries and bounds memory with its own eviction policy.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Optional<Entry> claim(String key, String fingerprint, Duration ttl) {
+        Boolean claimed = redisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + key, write(Entry.inProgress(fingerprint)), ttl);
+        if (Boolean.TRUE.equals(claimed)) {
+            return Optional.empty();
+        }
+
+        String existing = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+        if (existing == null) {
+            // Expired or released since the claim attempt
+            return claim(key, fingerprint, ttl);
+        }
+        return Optional.of(read(existing));
+    }
+
+    @Override
+    public void complete(String key, Entry entry, Duration ttl) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + key, write(entry), ttl);
+    }
+
+    @Override
+    public void release(String key) {
+        redisTemplate.delete(KEY_PREFIX + key);
+    }
+
+    private String write(Entry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotency entry", e);
+        }
+    }
+
+    private Entry read(String value) {
+        try {
+            return objectMapper.readValue(value, Entry.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read idempotency entry", e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.salonplatform.service;
+
+import com.salonplatform.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer lane per salon for queue mutations.
+ *
+ * A mutation runs on the caller's thread so it joins the caller's
+ * transaction, but only one transaction per salon can be inside its lane.
+ * The lane is held until that transaction completes, so the next writer
+ * always reads committed positions. Different salons never share a lane.
+ */
+@Component
+@Slf4j
+public class SalonQueueLanes {
+
+    /**
+     * Order of the lane release among transaction synchronizations. State a
+     * mutation publishes on completion uses a lower order, so the next
+     * writer of the salon never runs before it is published.
+     */
+    public static final int RELEASE_ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    private final Map<UUID, ReentrantLock> lanes = new ConcurrentHashMap<>();
+
+    @Value("${app.queue.lane-timeout-ms:5000}")
+    private long laneTimeoutMs;
+
+    public <T> T execute(UUID salonId, Supplier<T> mutation) {
+        ReentrantLock lane = lanes.computeIfAbsent(salonId, id -> new ReentrantLock());
+        acquire(salonId, lane);
+
+        boolean releaseOnCompletion = TransactionSynchronizationManager.isSynchronizationActive();
+        if (releaseOnCompletion) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lane.unlock();
+                }
+
+                @Override
+                public int getOrder() {
+                    return RELEASE_ORDER;
+                }
+            });
+        }
+
+        try {
+            return mutation.get();
+        } finally {
+            if (!releaseOnCompletion) {
+                lane.unlock();
+            }
+        }
+    }
+
+    public void execute(UUID salonId, Runnable mutation) {
+        execute(salonId, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    private void acquire(UUID salonId, ReentrantLock lane) {
+        try {
+            if (!lane.tryLock(laneTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Timed out waiting for queue lane of salon: {}", salonId);
+                throw new BusinessException("Queue is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrupted while waiting for queue", e);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.salonplatform.service;
 
 import com.salonplatform.dto.*;
 import com.salonplatform.entity.*;
-import com.salonplatform.enums.QueueStatus;
 import com.salonplatform.enums.SubscriptionTier;
 import com.salonplatform.enums.UserRole;
 import com.salonplatform.exception.BusinessException;
@@ -32,6 +31,7 @@ public class SalonService {
     private final BookingRepository bookingRepository;
     private final QueueRepository queueRepository;
     private final SalonImageRepository salonImageRepository;
+    private final WaitTimeEstimator waitTimeEstimator;
 
     @Transactional
     public SalonResponse createSalon(UUID ownerId, CreateSalonRequest request) {
@@ -285,16 +285,10 @@ public class SalonService {
     }
 
     private LocalDateTime calculateNextAvailableTime(UUID salonId) {
-        List<Queue> queue = queueRepository.findBySalonIdAndStatusOrderByPositionAsc(
-                salonId, QueueStatus.WAITING);
+        // Earliest time any available barber is free after serving the queue
+        int waitMinutes = waitTimeEstimator.estimateSalon(salonId).getNextAvailableMinutes();
 
-        if (queue.isEmpty()) return LocalDateTime.now();
-
-        int totalWaitMinutes = queue.stream()
-                .mapToInt(q -> q.getBooking().getEstimatedDurationMinutes())
-                .sum();
-
-        return LocalDateTime.now().plusMinutes(totalWaitMinutes);
+        return LocalDateTime.now().plusMinutes(waitMinutes);
     }
 
     private void validateCoordinates(BigDecimal latitude, BigDecimal longitude) {
@@ -0,0 +1,221 @@
+package com.salonplatform.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Learns real service durations from completed bookings.
+ *
+ * Keeps an EWMA and a P-square p90 sketch per service x barber and per
+ * service, each a fixed handful of numbers regardless of sample count.
+ * Estimates fall back from barber to service to the static duration
+ * while samples are scarce.
+ */
+@Component
+@Slf4j
+public class ServiceDurationEstimator {
+
+    private static final int MAX_SAMPLE_MINUTES = 8 * 60;
+
+    private final Map<DurationKey, DurationStats> stats = new ConcurrentHashMap<>();
+
+    @Value("${app.queue.duration.ewma-alpha:0.2}")
+    private double alpha;
+
+    @Value("${app.queue.duration.min-samples:5}")
+    private int minSamples;
+
+    /**
+     * Record an observed service duration (called when a service completes).
+     * Applied once the current transaction commits, so a completion that
+     * rolls back leaves the estimates untouched.
+     */
+    public void record(UUID serviceId, UUID barberId, long minutes) {
+        if (serviceId == null || minutes <= 0 || minutes > MAX_SAMPLE_MINUTES) {
+            // Services left running by mistake would poison the estimate
+            log.debug("Ignoring duration sample of {} minutes for service {}", minutes, serviceId);
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(serviceId, barberId, minutes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(serviceId, barberId, minutes);
+            }
+        });
+    }
+
+    /**
+     * Expected duration for a service, optionally done by a specific barber
+     */
+    public int estimateMinutes(UUID serviceId, UUID barberId, int staticMinutes) {
+        DurationStats learned = lookup(serviceId, barberId);
+        return learned != null ? (int) Math.round(learned.mean()) : staticMinutes;
+    }
+
+    /**
+     * Conservative (p90) duration, for services already running longer
+     * than expected
+     */
+    public int estimateP90Minutes(UUID serviceId, UUID barberId, int staticMinutes) {
+        DurationStats learned = lookup(serviceId, barberId);
+        return learned != null ? (int) Math.round(learned.p90()) : staticMinutes;
+    }
+
+    private DurationStats lookup(UUID serviceId, UUID barberId) {
+        if (serviceId == null) {
+            return null;
+        }
+        if (barberId != null) {
+            DurationStats byBarber = stats.get(new DurationKey(serviceId, barberId));
+            if (byBarber != null && byBarber.samples() >= minSamples) {
+                return byBarber;
+            }
+        }
+        DurationStats byService = stats.get(new DurationKey(serviceId, null));
+        return byService != null && byService.samples() >= minSamples ? byService : null;
+    }
+
+    private void apply(UUID serviceId, UUID barberId, long minutes) {
+        update(new DurationKey(serviceId, null), minutes);
+        if (barberId != null) {
+            update(new DurationKey(serviceId, barberId), minutes);
+        }
+    }
+
+    private void update(DurationKey key, long minutes) {
+        stats.computeIfAbsent(key, k -> new DurationStats()).add(minutes, alpha);
+    }
+
+    private record DurationKey(UUID serviceId, UUID barberId) {
+    }
+
+    private static final class DurationStats {
+        private long samples;
+        private double ewma;
+        private final P2Quantile p90 = new P2Quantile(0.9);
+
+        synchronized void add(double minutes, double alpha) {
+            ewma = samples == 0 ? minutes : alpha * minutes + (1 - alpha) * ewma;
+            p90.add(minutes);
+            samples++;
+        }
+
+        synchronized long samples() {
+            return samples;
+        }
+
+        synchronized double mean() {
+            return ewma;
+        }
+
+        synchronized double p90() {
+            return p90.value();
+        }
+    }
+
+    /**
+     * P-square streaming quantile estimator (Jain and Chlamtac): five
+     * markers, no stored samples.
+     */
+    static final class P2Quantile {
+        private final double p;
+        private final double[] height = new double[5];
+        private final double[] position = new double[5];
+        private final double[] desired = new double[5];
+        private final double[] increment;
+        private int count;
+
+        P2Quantile(double p) {
+            this.p = p;
+            this.increment = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+        }
+
+        void add(double x) {
+            if (count < 5) {
+                height[count++] = x;
+                if (count == 5) {
+                    Arrays.sort(height);
+                    for (int i = 0; i < 5; i++) {
+                        position[i] = i + 1;
+                    }
+                    desired[0] = 1;
+                    desired[1] = 1 + 2 * p;
+                    desired[2] = 1 + 4 * p;
+                    desired[3] = 3 + 2 * p;
+                    desired[4] = 5;
+                }
+                return;
+            }
+
+            int k;
+            if (x < height[0]) {
+                height[0] = x;
+                k = 0;
+            } else if (x >= height[4]) {
+                height[4] = x;
+                k = 3;
+            } else {
+                k = 0;
+                while (k < 3 && x >= height[k + 1]) {
+                    k++;
+                }
+            }
+
+            for (int i = k + 1; i < 5; i++) {
+                position[i]++;
+            }
+            for (int i = 0; i < 5; i++) {
+                desired[i] += increment[i];
+            }
+
+            for (int i = 1; i < 4; i++) {
+                double d = desired[i] - position[i];
+                if ((d >= 1 && position[i + 1] - position[i] > 1) ||
+                        (d <= -1 && position[i - 1] - position[i] < -1)) {
+                    int step = d > 0 ? 1 : -1;
+                    double candidate = parabolic(i, step);
+                    height[i] = height[i - 1] < candidate && candidate < height[i + 1]
+                            ? candidate
+                            : linear(i, step);
+                    position[i] += step;
+                }
+            }
+            count++;
+        }
+
+        double value() {
+            if (count == 0) {
+                return 0;
+            }
+            if (count < 5) {
+                double[] sorted = Arrays.copyOf(height, count);
+                Arrays.sort(sorted);
+                return sorted[(int) Math.min(count - 1, Math.floor(p * count))];
+            }
+            return height[2];
+        }
+
+        private double parabolic(int i, int d) {
+            return height[i] + d / (position[i + 1] - position[i - 1]) *
+                    ((position[i] - position[i - 1] + d) * (height[i + 1] - height[i]) / (position[i + 1] - position[i]) +
+                            (position[i + 1] - position[i] - d) * (height[i] - height[i - 1]) / (position[i] - position[i - 1]));
+        }
+
+        private double linear(int i, int d) {
+            return height[i] + d * (height[i + d] - height[i]) / (position[i + d] - position[i]);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Appointment slots per barber per day, one bit per slot (5 minutes by
+ * default, so a day is 288 bits in five longs). Finding the first free run
+ * for a service skips whole words of taken or free slots via BitSet's
+ * nextSetBit / nextClearBit, and reserving sets the run under the day's
+ * lock, so a slot is never handed out twice on this node.
+ *
+ * A day is loaded from the bookings holding slots in it the first time it
+ * is used. Reservations are undone if the booking's transaction rolls
+ * back; releases apply once the releasing transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SlotCalendar {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final List<BookingStatus> HOLDING_STATUSES =
+            List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS);
+
+    private record Day(UUID barberId, LocalDate date) {
+    }
+
+    private final Map<Day, BitSet> days = new ConcurrentHashMap<>();
+    private final BookingRepository bookingRepository;
+    private final Clock clock;
+
+    @Value("${app.slots.granularity-minutes:5}")
+    private int granularityMinutes;
+
+    /**
+     * Reserve the first free run long enough for the service, starting no
+     * earlier than earliest and ending by closing time (null or midnight
+     * means end of day). Returns the slot start, or empty if the day has
+     * no room left.
+     */
+    public Optional<LocalDateTime> reserve(UUID barberId, LocalDateTime earliest, LocalTime closing, int minutes) {
+        LocalDate date = earliest.toLocalDate();
+        int from = ceilSlots(earliest.toLocalTime().toSecondOfDay() / 60);
+        int to = closing == null || closing.equals(LocalTime.MIDNIGHT)
+                ? MINUTES_PER_DAY / granularityMinutes
+                : closing.toSecondOfDay() / 60 / granularityMinutes;
+        int length = Math.max(1, ceilSlots(minutes));
+
+        BitSet slots = day(barberId, date);
+        int start;
+        synchronized (slots) {
+            start = firstFit(slots, from, to, length);
+            if (start < 0) {
+                return Optional.empty();
+            }
+            slots.set(start, start + length);
+        }
+
+        undoOnRollback(slots, start, length);
+        return Optional.of(date.atStartOfDay().plusMinutes((long) start * granularityMinutes));
+    }
+
+    /**
+     * Give back the slots a booking holds, once the current transaction commits
+     */
+    public void release(Booking booking) {
+        if (booking.getSlotStartTime() == null || booking.getBarber() == null) {
+            return;
+        }
+        BitSet slots = days.get(new Day(booking.getBarber().getId(), booking.getSlotStartTime().toLocalDate()));
+        if (slots == null) {
+            // Not loaded here; the next load reads the released booking's status
+            return;
+        }
+
+        int start = booking.getSlotStartTime().toLocalTime().toSecondOfDay() / 60 / granularityMinutes;
+        int length = Math.max(1, ceilSlots(booking.getEstimatedDurationMinutes()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear(slots, start, length);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear(slots, start, length);
+            }
+        });
+    }
+
+    /**
+     * Forget days that have passed
+     */
+    @Scheduled(fixedDelayString = "${app.slots.purge-interval-ms:3600000}")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now(clock);
+        days.keySet().removeIf(day -> day.date().isBefore(today));
+    }
+
+    /**
+     * Start of the first run of length clear bits in [from, to), or -1
+     */
+    static int firstFit(BitSet slots, int from, int to, int length) {
+        int start = slots.nextClearBit(from);
+        while (start + length <= to) {
+            int taken = slots.nextSetBit(start);
+            if (taken < 0 || taken >= start + length) {
+                return start;
+            }
+            start = slots.nextClearBit(taken);
+        }
+        return -1;
+    }
+
+    private BitSet day(UUID barberId, LocalDate date) {
+        Day key = new Day(barberId, date);
+        BitSet slots = days.get(key);
+        if (slots != null) {
+            return slots;
+        }
+
+        slots = new BitSet(MINUTES_PER_DAY / granularityMinutes);
+        LocalDateTime dayStart = date.atStartOfDay();
+        for (Booking booking : bookingRepository.findSlotHolders(
+                barberId, dayStart, dayStart.plusDays(1), HOLDING_STATUSES)) {
+            int start = booking.getSlotStartTime().toLocalTime().toSecondOfDay() / 60 / granularityMinutes;
+            slots.set(start, start + Math.max(1, ceilSlots(booking.getEstimatedDurationMinutes())));
+        }
+
+        BitSet existing = days.putIfAbsent(key, slots);
+        if (existing == null) {
+            log.debug("Loaded slots for barber {} on {}", barberId, date);
+        }
+        return existing != null ? existing : slots;
+    }
+
+    private void undoOnRollback(BitSet slots, int start, int length) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    clear(slots, start, length);
+                }
+            }
+        });
+    }
+
+    private void clear(BitSet slots, int start, int length) {
+        synchronized (slots) {
+            slots.clear(start, start + length);
+        }
+    }
+
+    private int ceilSlots(int minutes) {
+        return (minutes + granularityMinutes - 1) / granularityMinutes;
+    }
+}
@@ -0,0 +1,242 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Barber;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.QueueRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Estimates queue waits by simulating every available barber as a
+ * parallel server. Barber free-times live in an indexed min-heap, so a
+ * queue of n entries served by b barbers costs O(n log b).
+ */
+@Service
+@RequiredArgsConstructor
+public class WaitTimeEstimator {
+
+    static final int ANY_BARBER = -1;
+
+    static final List<QueueStatus> ACTIVE_STATUSES =
+            List.of(QueueStatus.IN_SERVICE, QueueStatus.WAITING);
+
+    private final QueueRepository queueRepository;
+    private final BarberRepository barberRepository;
+    private final ServiceDurationEstimator durationEstimator;
+    private final Clock clock;
+
+    /**
+     * Estimate waits for the current active queue of a salon
+     */
+    public WaitEstimate estimateSalon(UUID salonId) {
+        List<Queue> activeQueue = queueRepository.findActiveWithBooking(salonId, ACTIVE_STATUSES);
+        List<Barber> barbers = barberRepository.findBySalonIdAndIsAvailableTrue(salonId);
+        return estimate(activeQueue, barbers, LocalDateTime.now(clock));
+    }
+
+    /**
+     * Estimate waits for the given active entries (IN_SERVICE and WAITING,
+     * waiting ones in queue order)
+     */
+    public WaitEstimate estimate(List<Queue> activeQueue, List<Barber> barbers, LocalDateTime now) {
+        Map<UUID, Integer> barberIndex = new HashMap<>();
+        for (Barber barber : barbers) {
+            barberIndex.putIfAbsent(barber.getId(), barberIndex.size());
+        }
+
+        int n = activeQueue.size();
+        int[] server = new int[n];
+        int[] minutes = new int[n];
+        boolean[] inService = new boolean[n];
+
+        for (int i = 0; i < n; i++) {
+            Queue entry = activeQueue.get(i);
+            Booking booking = entry.getBooking();
+            Integer index = entry.getBarber() != null
+                    ? barberIndex.get(entry.getBarber().getId())
+                    : null;
+
+            inService[i] = entry.getStatus() == QueueStatus.IN_SERVICE;
+            int duration = expectedDuration(entry, booking, false);
+
+            if (inService[i]) {
+                // A barber who is serving but not on the available list does not block anyone
+                if (index == null && entry.getBarber() != null) {
+                    minutes[i] = 0;
+                    server[i] = ANY_BARBER;
+                    continue;
+                }
+                minutes[i] = remainingMinutes(booking, duration, expectedDuration(entry, booking, true), now);
+            } else {
+                minutes[i] = duration;
+            }
+            // Waiting entries pinned to a barber who is off fall back to any barber
+            server[i] = index != null ? index : ANY_BARBER;
+        }
+
+        SimulationResult result = simulate(barberIndex.size(), server, minutes, inService);
+
+        Map<UUID, Integer> waits = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            waits.put(activeQueue.get(i).getId(), result.waitMinutes[i]);
+        }
+
+        return new WaitEstimate(waits, result.nextAvailableMinutes);
+    }
+
+    /**
+     * Core simulation over primitive arrays.
+     *
+     * @param servers   number of available barbers; 0 is treated as one
+     * @param server    barber index per entry, or {@link #ANY_BARBER}
+     * @param minutes   remaining minutes for in-service entries, duration otherwise
+     * @param inService whether the entry is already being served
+     */
+    static SimulationResult simulate(int servers, int[] server, int[] minutes, boolean[] inService) {
+        // Salons without barber records still have someone serving the queue
+        int b = Math.max(1, servers);
+        BarberHeap heap = new BarberHeap(b);
+        int[] waits = new int[minutes.length];
+
+        // Pass 1: occupy barbers with work already in progress
+        for (int i = 0; i < minutes.length; i++) {
+            if (inService[i] && minutes[i] > 0) {
+                heap.occupy(pick(heap, server[i], b), minutes[i]);
+            }
+        }
+
+        // Pass 2: hand waiting entries to the barber who frees up first
+        for (int i = 0; i < minutes.length; i++) {
+            if (!inService[i]) {
+                int barber = pick(heap, server[i], b);
+                waits[i] = (int) Math.min(Integer.MAX_VALUE, heap.freeAt(barber));
+                heap.occupy(barber, minutes[i]);
+            }
+        }
+
+        int next = (int) Math.min(Integer.MAX_VALUE, heap.freeAt(heap.peek()));
+        return new SimulationResult(waits, next);
+    }
+
+    private static int pick(BarberHeap heap, int preferred, int servers) {
+        return preferred >= 0 && preferred < servers ? preferred : heap.peek();
+    }
+
+    private int expectedDuration(Queue entry, Booking booking, boolean p90) {
+        int staticMinutes = booking.getEstimatedDurationMinutes() != null
+                ? booking.getEstimatedDurationMinutes() : 0;
+        UUID serviceId = booking.getService() != null ? booking.getService().getId() : null;
+        UUID barberId = entry.getBarber() != null ? entry.getBarber().getId() : null;
+
+        // Learned duration once enough services were completed, static otherwise
+        return p90
+                ? durationEstimator.estimateP90Minutes(serviceId, barberId, staticMinutes)
+                : durationEstimator.estimateMinutes(serviceId, barberId, staticMinutes);
+    }
+
+    /**
+     * Minutes left of a service in progress. One that has already run past
+     * its expected duration is probably a long one, so it is given until
+     * the p90 duration rather than counted as finishing now.
+     */
+    private static int remainingMinutes(Booking booking, int duration, int p90Duration, LocalDateTime now) {
+        if (booking.getActualStartTime() == null) {
+            return duration;
+        }
+        long elapsed = Duration.between(booking.getActualStartTime(), now).toMinutes();
+        if (elapsed < duration) {
+            return duration - (int) elapsed;
+        }
+        return (int) Math.max(0, p90Duration - elapsed);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class WaitEstimate {
+        private final Map<UUID, Integer> waitMinutes;
+        private final int nextAvailableMinutes;
+
+        public int waitFor(UUID queueId) {
+            return waitMinutes.getOrDefault(queueId, nextAvailableMinutes);
+        }
+    }
+
+    @AllArgsConstructor
+    static class SimulationResult {
+        final int[] waitMinutes;
+        final int nextAvailableMinutes;
+    }
+
+    /**
+     * Indexed binary min-heap of barber free-times. Free-times only grow,
+     * so an update is a single sift-down.
+     */
+    private static final class BarberHeap {
+        private final long[] freeAt;
+        private final int[] heap;
+        private final int[] pos;
+
+        BarberHeap(int size) {
+            freeAt = new long[size];
+            heap = new int[size];
+            pos = new int[size];
+            for (int i = 0; i < size; i++) {
+                heap[i] = i;
+                pos[i] = i;
+            }
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        long freeAt(int barber) {
+            return freeAt[barber];
+        }
+
+        void occupy(int barber, int minutes) {
+            freeAt[barber] += minutes;
+            siftDown(pos[barber]);
+        }
+
+        private void siftDown(int i) {
+            int size = heap.length;
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) {
+                    return;
+                }
+                int right = left + 1;
+                int smallest = right < size && less(heap[right], heap[left]) ? right : left;
+                if (!less(heap[smallest], heap[i])) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private boolean less(int a, int b) {
+            return freeAt[a] < freeAt[b] || (freeAt[a] == freeAt[b] && a < b);
+        }
+
+        private void swap(int i, int j) {
+            int a = heap[i];
+            int b = heap[j];
+            heap[i] = b;
+            heap[j] = a;
+            pos[b] = i;
+            pos[a] = j;
+        }
+    }
+}
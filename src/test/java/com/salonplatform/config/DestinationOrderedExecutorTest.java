@@ -0,0 +1,92 @@
+package com.salonplatform.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Broker channel executor for relay mode: per-destination send order,
+ * parallel across destinations.
+ */
+class DestinationOrderedExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final ExecutorSubscribableChannel channel =
+            new ExecutorSubscribableChannel(new DestinationOrderedExecutor(pool));
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void keepsSendOrderPerDestination() throws Exception {
+        int destinations = 8;
+        int perDestination = 2_000;
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(destinations * perDestination);
+        channel.subscribe(message -> {
+            received.computeIfAbsent(destination(message), d -> new CopyOnWriteArrayList<>())
+                    .add((Integer) message.getPayload());
+            done.countDown();
+        });
+
+        for (int i = 0; i < perDestination; i++) {
+            for (int d = 0; d < destinations; d++) {
+                channel.send(message("/topic/salon/" + d + "/queue", i));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (List<Integer> values : received.values()) {
+            for (int i = 0; i < perDestination; i++) {
+                assertEquals(i, values.get(i));
+            }
+        }
+    }
+
+    @Test
+    void blockedDestinationDoesNotHoldOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDelivered = new CountDownLatch(1);
+        MessageHandler handler = message -> {
+            if (destination(message).equals("/topic/slow")) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                otherDelivered.countDown();
+            }
+        };
+        channel.subscribe(handler);
+
+        channel.send(message("/topic/slow", 1));
+        channel.send(message("/topic/slow", 2));
+        channel.send(message("/topic/fast", 1));
+
+        assertTrue(otherDelivered.await(2, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    private static Message<Integer> message(String destination, int value) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(value, accessor.getMessageHeaders());
+    }
+
+    private static String destination(Message<?> message) {
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+}
@@ -0,0 +1,58 @@
+package com.salonplatform.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Relay-mode nodes other than the queue writer hand queue requests to the writer.
+ */
+class QueueWriterRedirectFilterTest {
+
+    private static final String SALON = "/api/v1/queue/salon/4f1c2a9e-0d6b-4a8e-9a51-1b7f3c2d8e10";
+
+    @Test
+    void redirectsQueueReadsAndStreamsToWriter() throws Exception {
+        QueueWriterRedirectFilter filter = new QueueWriterRedirectFilter("relay", "https://writer.internal/");
+
+        MockHttpServletResponse snapshot = filter(filter, "GET", SALON + "/snapshot", null);
+        assertEquals(307, snapshot.getStatus());
+        assertEquals("https://writer.internal" + SALON + "/snapshot", snapshot.getHeader(HttpHeaders.LOCATION));
+
+        MockHttpServletResponse stream = filter(filter, "GET",
+                "/api/v1/salons/4f1c2a9e-0d6b-4a8e-9a51-1b7f3c2d8e10/available-slots/stream", "lang=en");
+        assertEquals(307, stream.getStatus());
+        assertTrue(stream.getHeader(HttpHeaders.LOCATION).endsWith("/available-slots/stream?lang=en"));
+
+        assertEquals(307, filter(filter, "POST", SALON + "/batch", null).getStatus());
+    }
+
+    @Test
+    void servesOtherRequestsLocally() throws Exception {
+        QueueWriterRedirectFilter filter = new QueueWriterRedirectFilter("relay", "https://writer.internal");
+
+        MockHttpServletResponse salon = filter(filter, "GET", "/api/v1/salons/nearby", null);
+        assertEquals(200, salon.getStatus());
+        assertNull(salon.getHeader(HttpHeaders.LOCATION));
+    }
+
+    @Test
+    void writerAndSingleNodeServeQueueThemselves() throws Exception {
+        assertEquals(200, filter(new QueueWriterRedirectFilter("relay", ""), "GET", SALON, null).getStatus());
+        assertEquals(200, filter(new QueueWriterRedirectFilter("simple", "https://writer.internal"),
+                "GET", SALON, null).getStatus());
+    }
+
+    private static MockHttpServletResponse filter(QueueWriterRedirectFilter filter, String method,
+                                                  String uri, String query) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setQueryString(query);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
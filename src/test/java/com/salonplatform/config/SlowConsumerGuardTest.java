@@ -0,0 +1,152 @@
+package com.salonplatform.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * A client that stops reading must not pile up stale queue frames: while
+ * its write is blocked only the latest frame per subscription is kept.
+ * Nor may it hold up other sessions or stay connected past the send time
+ * limit.
+ */
+class SlowConsumerGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    @Test
+    void keepsOnlyLatestQueueFramePerSubscriptionWhileWriteIsBlocked() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(meterRegistry, 10_000, 512 * 1024, true, 1, 4);
+        WebSocketSession session = guard.new BufferedSession(slowSession());
+
+        session.sendMessage(queueFrame("sub-0", 0));
+        awaitDelivered(1);
+
+        // Client stopped reading: everything below waits behind the blocked write
+        for (int version = 1; version <= 200; version++) {
+            session.sendMessage(queueFrame("sub-0", version));
+        }
+        session.sendMessage(new TextMessage("MESSAGE\ndestination:/topic/other\nsubscription:sub-1\n\nx\0"));
+        session.sendMessage(queueFrame("sub-0", 201));
+
+        release.countDown();
+        awaitDelivered(3);
+
+        assertTrue(delivered.get(0).contains("\"version\":0"));
+        assertTrue(delivered.get(1).contains("/topic/other"));
+        assertTrue(delivered.get(2).contains("\"version\":201"));
+        assertEquals(200, meterRegistry.get("websocket.frames.dropped").counter().count());
+        guard.shutdown();
+    }
+
+    @Test
+    void closesSessionWhenBufferExceedsLimit() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(meterRegistry, 10_000, 4 * 1024, true, 1, 4);
+        WebSocketSession session = guard.new BufferedSession(slowSession());
+
+        session.sendMessage(queueFrame("sub-0", 0));
+        awaitDelivered(1);
+
+        // Frames for different subscriptions cannot replace each other
+        assertThrows(SessionLimitExceededException.class, () -> {
+            for (int i = 1; i <= 100; i++) {
+                session.sendMessage(queueFrame("sub-" + i, i));
+            }
+        });
+        assertEquals(1, meterRegistry.get("websocket.sessions.closed").tag("reason", "buffer-size")
+                .counter().count());
+
+        release.countDown();
+        guard.shutdown();
+    }
+
+    @Test
+    void slowSessionDoesNotDelayFastSession() throws Exception {
+        // One warm writer: the blocked write must not keep it from the fast session
+        SlowConsumerGuard guard = new SlowConsumerGuard(meterRegistry, 10_000, 512 * 1024, true, 1, 4);
+        WebSocketSession slow = guard.new BufferedSession(slowSession());
+        List<String> fastDelivered = new CopyOnWriteArrayList<>();
+        WebSocketSession fastDelegate = Mockito.mock(WebSocketSession.class);
+        Mockito.when(fastDelegate.getId()).thenReturn("fast");
+        Mockito.doAnswer(invocation -> fastDelivered.add((String) invocation.<WebSocketMessage<?>>getArgument(0)
+                .getPayload())).when(fastDelegate).sendMessage(any());
+        WebSocketSession fast = guard.new BufferedSession(fastDelegate);
+
+        slow.sendMessage(queueFrame("sub-0", 0));
+        awaitDelivered(1);
+
+        long start = System.currentTimeMillis();
+        for (int version = 0; version < 10; version++) {
+            fast.sendMessage(queueFrame("sub-" + version, version));
+        }
+        while (fastDelivered.size() < 10 && System.currentTimeMillis() - start < 2_000) {
+            Thread.sleep(5);
+        }
+        assertEquals(10, fastDelivered.size());
+        assertEquals(1, release.getCount(), "slow write still blocked");
+
+        release.countDown();
+        guard.shutdown();
+    }
+
+    @Test
+    void watchdogClosesSessionBlockedPastSendTimeLimit() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(meterRegistry, 100, 512 * 1024, true, 1, 4);
+        WebSocketSession delegate = slowSession();
+        WebSocketSession session = guard.new BufferedSession(delegate);
+
+        // No further frame arrives: only the watchdog can notice the stuck write
+        session.sendMessage(queueFrame("sub-0", 0));
+        awaitDelivered(1);
+
+        Mockito.verify(delegate, Mockito.timeout(2_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, meterRegistry.get("websocket.sessions.closed").tag("reason", "send-time")
+                .counter().count());
+
+        release.countDown();
+        guard.shutdown();
+    }
+
+    private WebSocketSession slowSession() throws Exception {
+        WebSocketSession session = Mockito.mock(WebSocketSession.class);
+        Mockito.when(session.getId()).thenReturn("slow");
+        Mockito.doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            delivered.add((String) message.getPayload());
+            if (delivered.size() == 1) {
+                // First write blocks like a full TCP window
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(session).sendMessage(any());
+        return session;
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, delivered.size());
+    }
+
+    private static TextMessage queueFrame(String subscription, int version) {
+        return new TextMessage("MESSAGE\ndestination:/topic/salon/5b1f/queue\nsubscription:" + subscription
+                + "\ncontent-type:application/json\n\n{\"version\":" + version + ",\"moved\":[]}\0");
+    }
+}
@@ -0,0 +1,220 @@
+package com.salonplatform.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.salonplatform.dto.QueueDeltaResponse;
+import com.salonplatform.dto.QueueEntryMove;
+import com.salonplatform.service.QueueBroadcaster;
+import com.salonplatform.service.QueueFrameCodec;
+import com.salonplatform.service.QueueSubscriptionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.net.ServerSocket;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Several app nodes in one JVM, each with its own broker relay, sharing an
+ * embedded Artemis broker. Every subscriber must receive every broadcast,
+ * whichever node published it. Logs delivery throughput. Tagged "load":
+ * run with mvn test -Pload-tests.
+ */
+@Tag("load")
+@Slf4j
+class StompBrokerRelayThroughputTest {
+
+    private static final int NODES = 3;
+    private static final int SUBSCRIBERS_PER_NODE = 2;
+    private static final int UPDATES_PER_NODE = 2_000;
+
+    private EmbeddedActiveMQ broker;
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void startBroker() throws Exception {
+        // Artemis audits every message at INFO, which would dominate the measurement
+        ((Logger) LoggerFactory.getLogger("org.apache.activemq")).setLevel(Level.WARN);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        // Same prefix mapping a production Artemis would need for /topic and /queue
+        broker = new EmbeddedActiveMQ().setConfiguration(new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port
+                        + "?protocols=STOMP;multicastPrefix=/topic/;anycastPrefix=/queue/"));
+        broker.start();
+
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new Node(port));
+        }
+    }
+
+    @AfterEach
+    void stopBroker() throws Exception {
+        nodes.forEach(Node::stop);
+        broker.stop();
+    }
+
+    @Test
+    void broadcastsReachSubscribersOnEveryNode() throws Exception {
+        UUID salonId = UUID.randomUUID();
+        String topic = QueueBroadcaster.queueTopic(salonId);
+        int expectedPerSubscriber = NODES * UPDATES_PER_NODE;
+
+        CountDownLatch delivered = new CountDownLatch(NODES * SUBSCRIBERS_PER_NODE * expectedPerSubscriber);
+        for (Node node : nodes) {
+            for (int s = 0; s < SUBSCRIBERS_PER_NODE; s++) {
+                node.subscribe(topic, delivered);
+            }
+        }
+
+        ExecutorService publishers = Executors.newFixedThreadPool(NODES);
+        long start = System.nanoTime();
+        for (Node node : nodes) {
+            publishers.submit(() -> {
+                for (int v = 1; v <= UPDATES_PER_NODE; v++) {
+                    node.broadcaster.sendQueueDelta(salonId, delta(salonId, v));
+                }
+            });
+        }
+
+        boolean complete = delivered.await(60, TimeUnit.SECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+        publishers.shutdownNow();
+
+        long deliveries = (long) NODES * SUBSCRIBERS_PER_NODE * expectedPerSubscriber - delivered.getCount();
+        log.info(String.format("%d nodes, %d subscribers: %d published, %d delivered in %d ms (%.0f deliveries/s)",
+                NODES, NODES * SUBSCRIBERS_PER_NODE, NODES * UPDATES_PER_NODE, deliveries,
+                elapsedNanos / 1_000_000, deliveries / (elapsedNanos / 1e9)));
+
+        assertTrue(complete, "Missing deliveries: " + delivered.getCount());
+        for (Node node : nodes) {
+            for (AtomicInteger received : node.received.values()) {
+                assertEquals(expectedPerSubscriber, received.get());
+            }
+        }
+    }
+
+    private static QueueDeltaResponse delta(UUID salonId, long version) {
+        return QueueDeltaResponse.builder()
+                .salonId(salonId)
+                .version(version)
+                .previousVersion(version - 1)
+                .inserted(List.of())
+                .removed(List.of())
+                .moved(List.of(QueueEntryMove.builder()
+                        .queueId(UUID.randomUUID())
+                        .position(1)
+                        .estimatedWaitMinutes(15)
+                        .status("WAITING")
+                        .build()))
+                .build();
+    }
+
+    /** One app instance: its own channels and relay, as WebSocketConfig wires them in relay mode. */
+    private static class Node {
+
+        private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        private final ExecutorService brokerExecutor = Executors.newFixedThreadPool(4);
+        private final ExecutorSubscribableChannel brokerChannel =
+                new ExecutorSubscribableChannel(new DestinationOrderedExecutor(brokerExecutor));
+        private final StompBrokerRelayMessageHandler relay;
+        private final QueueBroadcaster broadcaster;
+
+        private final Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> receipts = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> deliveries = new ConcurrentHashMap<>();
+
+        Node(int port) throws InterruptedException {
+            relay = new StompBrokerRelayMessageHandler(clientInbound, clientOutbound, brokerChannel,
+                    Arrays.asList(WebSocketConfig.BROKER_PREFIXES));
+            relay.setRelayHost("127.0.0.1");
+            relay.setRelayPort(port);
+            relay.start();
+
+            SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+            template.setMessageConverter(new JacksonJsonMessageConverter());
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            QueueSubscriptionRegistry subscriptions =
+                    new QueueSubscriptionRegistry(event -> { }, meterRegistry, true, "relay");
+            broadcaster = new QueueBroadcaster(template, new QueueFrameCodec(false), subscriptions, meterRegistry);
+
+            clientOutbound.subscribe(this::onClientMessage);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(relay.isBrokerAvailable(), "Relay did not connect to the broker");
+        }
+
+        void subscribe(String destination, CountDownLatch delivered) throws InterruptedException {
+            String sessionId = UUID.randomUUID().toString();
+            received.put(sessionId, new AtomicInteger());
+            deliveries.put(sessionId, delivered);
+
+            CountDownLatch connected = new CountDownLatch(1);
+            receipts.put(sessionId, connected);
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setAcceptVersion("1.2");
+            connect.setHost("/");
+            send(connect, sessionId);
+            assertTrue(connected.await(10, TimeUnit.SECONDS), "Session did not connect");
+
+            CountDownLatch subscribed = new CountDownLatch(1);
+            receipts.put(sessionId, subscribed);
+            StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination(destination);
+            subscribe.setReceipt("subscribed");
+            send(subscribe, sessionId);
+            assertTrue(subscribed.await(10, TimeUnit.SECONDS), "Subscription was not confirmed");
+        }
+
+        private void send(StompHeaderAccessor accessor, String sessionId) {
+            accessor.setSessionId(sessionId);
+            clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+
+        private void onClientMessage(Message<?> message) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+            String sessionId = accessor.getSessionId();
+            StompCommand command = accessor.getCommand();
+            if (command == StompCommand.MESSAGE) {
+                received.get(sessionId).incrementAndGet();
+                deliveries.get(sessionId).countDown();
+            } else if (command == StompCommand.CONNECTED || command == StompCommand.RECEIPT) {
+                receipts.get(sessionId).countDown();
+            }
+        }
+
+        void stop() {
+            relay.stop();
+            brokerExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.salonplatform.config;
+
+import com.salonplatform.security.CustomUserDetailsService;
+import com.salonplatform.security.JwtTokenProvider;
+import com.salonplatform.security.StompAuthChannelInterceptor;
+import com.salonplatform.service.QueueBroadcaster;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Connection storm against a local Tomcat running the real WebSocketConfig:
+ * many clients connect and subscribe at once (salon opening hour), then
+ * every salon topic is broadcast to. Logs connect rate, subscribe rate
+ * and broadcast latency. Tagged "load": run with mvn test -Pload-tests.
+ *
+ * Scale with -Dload.connections, -Dload.subscriptions-per-connection,
+ * -Dload.subscribers-per-salon and -Dload.rounds.
+ */
+@Tag("load")
+@Slf4j
+class StompConnectionStormLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 1_000);
+    private static final int SUBSCRIPTIONS_PER_CONNECTION = Integer.getInteger("load.subscriptions-per-connection", 20);
+    private static final int SUBSCRIBERS_PER_SALON = Integer.getInteger("load.subscribers-per-salon", 10);
+    private static final int ROUNDS = Integer.getInteger("load.rounds", 5);
+    private static final int CONNECTS_IN_FLIGHT = 200;
+
+    private Path baseDir;
+    private Tomcat tomcat;
+    private AnnotationConfigWebApplicationContext serverContext;
+    private HttpClient httpClient;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        baseDir = Files.createTempDirectory("stomp-load");
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxConnections", "-1");
+
+        serverContext = new AnnotationConfigWebApplicationContext();
+        serverContext.register(ServerConfig.class);
+
+        Context context = tomcat.addContext("", baseDir.toString());
+        context.addServletContainerInitializer(new WsSci(), null);
+        Wrapper dispatcher = Tomcat.addServlet(context, "dispatcher", new DispatcherServlet(serverContext));
+        dispatcher.setLoadOnStartup(1);
+        dispatcher.setAsyncSupported(true);
+        context.addServletMappingDecoded("/", "dispatcher");
+        tomcat.start();
+
+        httpClient = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(4)).build();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        for (Client client : clients) {
+            client.socket.abort();
+        }
+        tomcat.stop();
+        tomcat.destroy();
+        try (var files = Files.walk(baseDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void connectionStormThenBroadcastToEverySalon() throws Exception {
+        int subscriptions = CONNECTIONS * SUBSCRIPTIONS_PER_CONNECTION;
+        int salons = Math.max(1, subscriptions / SUBSCRIBERS_PER_SALON);
+        List<String> topics = new ArrayList<>();
+        for (int i = 0; i < salons; i++) {
+            topics.add(QueueBroadcaster.queueTopic(new UUID(0, i)));
+        }
+
+        URI uri = URI.create("ws://localhost:" + tomcat.getConnector().getLocalPort() + "/ws-binary");
+        Semaphore inFlight = new Semaphore(CONNECTS_IN_FLIGHT);
+        AtomicInteger failures = new AtomicInteger();
+        List<Long> connectNanos = new CopyOnWriteArrayList<>();
+
+        // Storm: every client connects and subscribes as soon as a slot is free
+        long stormStart = System.nanoTime();
+        for (int c = 0; c < CONNECTIONS; c++) {
+            inFlight.acquire();
+            List<String> destinations = new ArrayList<>();
+            for (int s = 0; s < SUBSCRIPTIONS_PER_CONNECTION; s++) {
+                destinations.add(topics.get((c * SUBSCRIPTIONS_PER_CONNECTION + s) % salons));
+            }
+            Client client = new Client();
+            clients.add(client);
+            client.open(httpClient, uri, destinations)
+                    .whenComplete((connected, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            failures.incrementAndGet();
+                        } else {
+                            connectNanos.add(connected);
+                        }
+                    });
+        }
+        // Subscribed once the broker itself has registered every SUBSCRIBE
+        long subscribeDeadline = System.currentTimeMillis() + 120_000;
+        while (ServerConfig.SUBSCRIBED.get() < subscriptions && failures.get() == 0
+                && System.currentTimeMillis() < subscribeDeadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(subscriptions, ServerConfig.SUBSCRIBED.get(), "Failed clients: " + failures.get());
+        long stormNanos = System.nanoTime() - stormStart;
+        long lastConnected = connectNanos.stream().mapToLong(Long::longValue).max().orElse(stormStart);
+
+        // Broadcast one frame per salon per round; each round is awaited, so nothing is coalesced
+        SimpMessagingTemplate template = serverContext.getBean("brokerMessagingTemplate", SimpMessagingTemplate.class);
+        long expected = (long) ROUNDS * salons * SUBSCRIBERS_PER_SALON;
+        long broadcastStart = System.nanoTime();
+        for (int round = 1; round <= ROUNDS; round++) {
+            long target = (long) round * salons * SUBSCRIBERS_PER_SALON;
+            for (String topic : topics) {
+                template.convertAndSend(topic, Long.toString(System.nanoTime()));
+            }
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (Client.DELIVERED.get() < target && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+        long broadcastNanos = System.nanoTime() - broadcastStart;
+
+        long[] latencies = Client.LATENCIES.stream().mapToLong(Long::longValue).sorted().toArray();
+        MeterRegistry meterRegistry = serverContext.getBean(MeterRegistry.class);
+        log.info(String.format("%d connections, %d subscriptions over %d salons", CONNECTIONS, subscriptions, salons));
+        log.info(String.format("connect: %.0f connections/s | subscribed: %.0f subscriptions/s",
+                CONNECTIONS / ((lastConnected - stormStart) / 1e9), subscriptions / (stormNanos / 1e9)));
+        log.info(String.format("broadcast: %d/%d delivered, %.0f deliveries/s, latency p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                latencies.length, expected, latencies.length / (broadcastNanos / 1e9),
+                percentile(latencies, 50), percentile(latencies, 99), percentile(latencies, 100)));
+        for (String channel : List.of("inbound", "outbound")) {
+            Timer wait = meterRegistry.get("websocket.channel.queue.wait").tag("channel", channel).timer();
+            log.info(String.format("%s channel: %d messages, queue wait mean %.2f ms, max %.1f ms", channel,
+                    wait.count(), wait.mean(TimeUnit.MILLISECONDS), wait.max(TimeUnit.MILLISECONDS)));
+            assertTrue(wait.count() > 0, channel + " channel executor not used");
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(expected, latencies.length);
+        for (Client client : clients) {
+            assertEquals("10000,10000", client.heartbeat, "Broker heart-beat not offered");
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    @Configuration
+    @Import({WebSocketConfig.class, SlowConsumerGuard.class})
+    static class ServerConfig implements WebSocketMessageBrokerConfigurer {
+
+        static final AtomicInteger SUBSCRIBED = new AtomicInteger();
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        StompAuthChannelInterceptor stompAuthChannelInterceptor() {
+            return new StompAuthChannelInterceptor(Mockito.mock(JwtTokenProvider.class),
+                    Mockito.mock(CustomUserDetailsService.class));
+        }
+
+        @Override
+        public void configureClientInboundChannel(ChannelRegistration registration) {
+            // The simple broker sends no RECEIPT for SUBSCRIBE; count what it has handled
+            registration.interceptors(new ExecutorChannelInterceptor() {
+                @Override
+                public void afterMessageHandled(Message<?> message, MessageChannel channel,
+                                                MessageHandler handler, Exception ex) {
+                    if (handler instanceof SimpleBrokerMessageHandler && ex == null
+                            && SimpMessageHeaderAccessor.getMessageType(message.getHeaders())
+                            == SimpMessageType.SUBSCRIBE) {
+                        SUBSCRIBED.incrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /** Raw STOMP over a JDK WebSocket; one frame per message. */
+    private static class Client implements WebSocket.Listener {
+
+        static final AtomicLong DELIVERED = new AtomicLong();
+        static final Queue<Long> LATENCIES = new ConcurrentLinkedQueue<>();
+
+        private final StringBuilder partial = new StringBuilder();
+        private final CompletableFuture<Long> connected = new CompletableFuture<>();
+        volatile WebSocket socket;
+        volatile String heartbeat;
+
+        CompletableFuture<Long> open(HttpClient httpClient, URI uri, List<String> destinations) {
+            return httpClient.newWebSocketBuilder()
+                    .connectTimeout(java.time.Duration.ofSeconds(30))
+                    .buildAsync(uri, this)
+                    .thenCompose(webSocket -> {
+                        socket = webSocket;
+                        return webSocket.sendText("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n\n\0", true);
+                    })
+                    .thenCompose(webSocket -> connected)
+                    .thenCompose(connectedAt -> {
+                        CompletableFuture<WebSocket> sent = CompletableFuture.completedFuture(socket);
+                        for (int i = 0; i < destinations.size(); i++) {
+                            String frame = "SUBSCRIBE\nid:sub-" + i + "\ndestination:" + destinations.get(i) + "\n\n\0";
+                            sent = sent.thenCompose(webSocket -> webSocket.sendText(frame, true));
+                        }
+                        return sent.thenApply(webSocket -> connectedAt);
+                    });
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                onFrame(partial.toString());
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void onFrame(String frame) {
+            if (frame.startsWith("MESSAGE\n")) {
+                String body = frame.substring(frame.indexOf("\n\n") + 2, frame.indexOf('\0'));
+                LATENCIES.add(System.nanoTime() - Long.parseLong(body));
+                DELIVERED.incrementAndGet();
+            } else if (frame.startsWith("CONNECTED\n")) {
+                for (String line : frame.split("\n")) {
+                    if (line.startsWith("heart-beat:")) {
+                        heartbeat = line.substring("heart-beat:".length());
+                    }
+                }
+                connected.complete(System.nanoTime());
+            } else if (frame.startsWith("ERROR\n")) {
+                connected.completeExceptionally(new IllegalStateException(frame));
+            }
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            connected.completeExceptionally(error);
+        }
+    }
+}
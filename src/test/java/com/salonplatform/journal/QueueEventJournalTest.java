@@ -0,0 +1,148 @@
+package com.salonplatform.journal;
+
+import com.salonplatform.enums.QueueEventType;
+import com.salonplatform.enums.QueueStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Crash recovery, segment retention and offline replay of the queue
+ * journal, plus a "load" append/replay benchmark. Runs without a Spring
+ * context.
+ */
+@Slf4j
+class QueueEventJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rebuildsStateAfterCrashAcrossSegments() throws IOException {
+        UUID salonId = UUID.randomUUID();
+        QueueEventJournal journal = new QueueEventJournal();
+        journal.open(dir, QueueEventJournal.RECORD_BYTES * 8, 4);
+
+        List<UUID> queueIds = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            UUID queueId = UUID.randomUUID();
+            queueIds.add(queueId);
+            journal.append(event(QueueEventType.ADDED, salonId, queueId, i));
+        }
+        journal.append(event(QueueEventType.IN_SERVICE, salonId, queueIds.get(0), 1));
+        journal.append(event(QueueEventType.COMPLETED, salonId, queueIds.get(1), 2));
+        journal.append(event(QueueEventType.REORDERED, salonId, queueIds.get(2), 1));
+
+        // No close(): simulate a crash and recover from the mapped files
+        QueueEventJournal recovered = new QueueEventJournal();
+        recovered.open(dir, QueueEventJournal.RECORD_BYTES * 8, 4);
+
+        List<QueueJournalState.Entry> queue = recovered.getState().queue(salonId);
+        assertEquals(19, queue.size());
+        assertEquals(queueIds.get(0), queue.get(0).getQueueId());
+        assertEquals(QueueStatus.IN_SERVICE, queue.get(0).getStatus());
+        assertEquals(queueIds.get(2), queue.get(1).getQueueId());
+        assertEquals(23, recovered.getState().getLastSequence());
+
+        // Appending continues the sequence
+        QueueEvent next = recovered.append(event(QueueEventType.COMPLETED, salonId, queueIds.get(0), 1));
+        assertEquals(24, next.getSequence());
+        assertEquals(24, QueueEventJournal.replay(dir, e -> { }));
+    }
+
+    @Test
+    void keepsRetainedSegmentsAndRecoversFromSnapshot() throws IOException {
+        UUID salonId = UUID.randomUUID();
+        QueueEventJournal journal = new QueueEventJournal();
+        journal.open(dir, QueueEventJournal.RECORD_BYTES * 8, 2);
+
+        // Entries come and go; only the last few stay in the queue
+        List<UUID> queueIds = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+            UUID queueId = UUID.randomUUID();
+            queueIds.add(queueId);
+            journal.append(event(QueueEventType.ADDED, salonId, queueId, i));
+            if (i <= 57) {
+                journal.append(event(QueueEventType.COMPLETED, salonId, queueId, i));
+            }
+        }
+        journal.append(event(QueueEventType.IN_SERVICE, salonId, queueIds.get(57), 58));
+
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> names = files.map(p -> p.getFileName().toString()).sorted().toList();
+            assertEquals(2, names.stream().filter(n -> n.startsWith("queue-events-")).count());
+            assertEquals(1, names.stream().filter(n -> n.startsWith("queue-snapshot-")).count());
+        }
+        assertTrue(QueueEventJournal.replay(dir, e -> { }) <= 16);
+
+        QueueEventJournal recovered = new QueueEventJournal();
+        recovered.open(dir, QueueEventJournal.RECORD_BYTES * 8, 2);
+
+        List<QueueJournalState.Entry> queue = recovered.getState().queue(salonId);
+        assertEquals(queueIds.subList(57, 60), queue.stream().map(QueueJournalState.Entry::getQueueId).toList());
+        assertEquals(QueueStatus.IN_SERVICE, queue.get(0).getStatus());
+        assertEquals(118, recovered.getState().getLastSequence());
+        assertEquals(119, recovered.append(event(QueueEventType.COMPLETED, salonId, queueIds.get(57), 1))
+                .getSequence());
+    }
+
+    @Test
+    void refusesRelativeDirectory() {
+        QueueEventJournal journal = new QueueEventJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", "journal/queue");
+
+        assertThrows(IllegalStateException.class, journal::open);
+    }
+
+    @Test
+    @Tag("load")
+    void benchmarkAppendAndReplay() throws IOException {
+        int salons = 1_000;
+        int events = 200_000;
+        UUID[] salonIds = new UUID[salons];
+        for (int i = 0; i < salons; i++) {
+            salonIds[i] = UUID.randomUUID();
+        }
+
+        QueueEventJournal journal = new QueueEventJournal();
+        journal.open(dir, 4 * 1024 * 1024, 8);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            journal.append(event(QueueEventType.ADDED, salonIds[i % salons], UUID.randomUUID(), i / salons + 1));
+        }
+        journal.sync();
+        long appendNanos = System.nanoTime() - start;
+
+        QueueJournalState state = new QueueJournalState();
+        start = System.nanoTime();
+        long replayed = QueueEventJournal.replay(dir, state::apply);
+        long replayNanos = System.nanoTime() - start;
+
+        log.info(String.format("queue journal: append %d ns/event, replay %d ns/event (%d events, %d salons)",
+                appendNanos / events, replayNanos / events, replayed, state.salonIds().size()));
+        assertEquals(events, replayed);
+        assertEquals(events, state.entryCount());
+    }
+
+    private static QueueEvent event(QueueEventType type, UUID salonId, UUID queueId, int position) {
+        return QueueEvent.builder()
+                .type(type)
+                .salonId(salonId)
+                .queueId(queueId)
+                .bookingId(UUID.randomUUID())
+                .position(position)
+                .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Barber;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.enums.ServiceCategory;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import com.salonplatform.repository.QueueRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Online bookings go to the barber who frees up first, not to the one with
+ * the fewest lifetime services.
+ */
+@Slf4j
+class BarberAssignmentEngineTest {
+
+    private final Salon salon = Salon.builder().id(UUID.randomUUID()).build();
+    private final QueueRepository queueRepository = Mockito.mock(QueueRepository.class);
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final BarberRepository barberRepository = Mockito.mock(BarberRepository.class);
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-02T10:00:00Z"), ZoneOffset.UTC);
+    private long bookingSequence;
+
+    @Test
+    void spreadsBookingsByLiveLoadNotLifetimeServices() {
+        Barber senior = barber("Classic cuts", 5000);
+        Barber newHire = barber("Classic cuts", 0);
+        BarberAssignmentEngine engine = engine(List.of(senior, newHire), List.of(), 0);
+
+        Map<UUID, Integer> assigned = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            UUID barberId = engine.assign(salon.getId(), ServiceCategory.HAIRCUT).orElseThrow();
+            assigned.merge(barberId, 1, Integer::sum);
+            engine.queued(entry(barberId, QueueStatus.WAITING, 30));
+        }
+
+        assertEquals(5, assigned.get(senior.getId()));
+        assertEquals(5, assigned.get(newHire.getId()));
+    }
+
+    @Test
+    void loadsExistingQueueAndGivesBackTimeOnRemoval() {
+        Barber busy = barber(null, 0);
+        Barber idle = barber(null, 0);
+        Queue inService = entry(busy.getId(), QueueStatus.IN_SERVICE, 45);
+        BarberAssignmentEngine engine = engine(List.of(busy, idle), List.of(inService), 0);
+
+        assertEquals(idle.getId(), engine.assign(salon.getId(), null).orElseThrow());
+
+        Queue waiting = entry(idle.getId(), QueueStatus.WAITING, 60);
+        engine.queued(waiting);
+        assertEquals(busy.getId(), engine.assign(salon.getId(), null).orElseThrow());
+
+        engine.finished(waiting);
+        assertEquals(idle.getId(), engine.assign(salon.getId(), null).orElseThrow());
+    }
+
+    @Test
+    void countsPendingOnlineBookingsOnce() {
+        Barber first = barber(null, 0);
+        Barber second = barber(null, 0);
+        Booking loaded = pending(second.getId(), 30);
+        when(bookingRepository.findPendingOnlineBookings(any(), any())).thenReturn(List.of(loaded));
+        BarberAssignmentEngine engine = engine(List.of(first, second), List.of(), 0);
+
+        // Awaiting payment, yet already counted against its barber
+        assertEquals(first.getId(), engine.assign(salon.getId(), null).orElseThrow());
+        Booking booked = pending(first.getId(), 60);
+        engine.booked(booked);
+        assertEquals(second.getId(), engine.assign(salon.getId(), null).orElseThrow());
+
+        // Confirming does not count it again
+        Queue confirmed = entry(booked, first.getId(), QueueStatus.WAITING);
+        engine.queued(confirmed);
+        assertEquals(second.getId(), engine.assign(salon.getId(), null).orElseThrow());
+
+        engine.cancelled(loaded);
+        engine.finished(confirmed);
+        engine.booked(pending(second.getId(), 10));
+        assertEquals(first.getId(), engine.assign(salon.getId(), null).orElseThrow());
+    }
+
+    @Test
+    void prefersSpecialistWithinWeight() {
+        Barber generalist = barber("Haircut", 0);
+        Barber beardSpecialist = barber("Beard and haircut", 0);
+        Queue specialistBusy = entry(beardSpecialist.getId(), QueueStatus.IN_SERVICE, 8);
+
+        BarberAssignmentEngine weighted = engine(List.of(generalist, beardSpecialist), List.of(specialistBusy), 10);
+        assertEquals(beardSpecialist.getId(), weighted.assign(salon.getId(), ServiceCategory.BEARD).orElseThrow());
+        assertEquals(generalist.getId(), weighted.assign(salon.getId(), ServiceCategory.FACIAL).orElseThrow());
+
+        BarberAssignmentEngine unweighted = engine(List.of(generalist, beardSpecialist), List.of(specialistBusy), 0);
+        assertEquals(generalist.getId(), unweighted.assign(salon.getId(), ServiceCategory.BEARD).orElseThrow());
+    }
+
+    @Test
+    void emptyWithoutAvailableBarbers() {
+        assertTrue(engine(List.of(), List.of(), 0).assign(salon.getId(), ServiceCategory.HAIRCUT).isEmpty());
+    }
+
+    @Test
+    @Tag("load")
+    void assignsInLogarithmicTimeForLargeSalons() {
+        List<Barber> barbers = IntStream.range(0, 2_000).mapToObj(i -> barber(null, i)).toList();
+        BarberAssignmentEngine engine = engine(barbers, List.of(), 0);
+
+        int bookings = 200_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < bookings; i++) {
+            UUID barberId = engine.assign(salon.getId(), null).orElseThrow();
+            engine.queued(entry(barberId, QueueStatus.WAITING, 20));
+        }
+        double nanosPerBooking = (System.nanoTime() - start) / (double) bookings;
+
+        log.info(String.format("Assigned %d bookings across %d barbers: %.0f ns per assign+queue",
+                bookings, barbers.size(), nanosPerBooking));
+        assertTrue(nanosPerBooking < 50_000, "assignment should not scan every barber");
+    }
+
+    private BarberAssignmentEngine engine(List<Barber> barbers, List<Queue> active, int weightMinutes) {
+        when(barberRepository.findBySalonIdAndIsAvailableTrue(salon.getId())).thenReturn(barbers);
+        when(queueRepository.findActiveWithBooking(any(), any())).thenReturn(active);
+
+        ServiceDurationEstimator durationEstimator = new ServiceDurationEstimator();
+        ReflectionTestUtils.setField(durationEstimator, "alpha", 0.2);
+        ReflectionTestUtils.setField(durationEstimator, "minSamples", 5);
+
+        BarberAssignmentEngine engine =
+                new BarberAssignmentEngine(queueRepository, bookingRepository, barberRepository, durationEstimator, clock);
+        ReflectionTestUtils.setField(engine, "specializationWeightMinutes", weightMinutes);
+        ReflectionTestUtils.setField(engine, "rebuildIntervalMs", 300_000L);
+        return engine;
+    }
+
+    private Barber barber(String specialization, int totalServices) {
+        return Barber.builder()
+                .id(UUID.randomUUID())
+                .salon(salon)
+                .name("barber")
+                .specialization(specialization)
+                .totalServices(totalServices)
+                .isAvailable(true)
+                .build();
+    }
+
+    private Booking pending(UUID barberId, int minutes) {
+        return Booking.builder()
+                .id(new UUID(0, ++bookingSequence))
+                .salon(salon)
+                .barber(Barber.builder().id(barberId).build())
+                .estimatedDurationMinutes(minutes)
+                .build();
+    }
+
+    private Queue entry(UUID barberId, QueueStatus status, int minutes) {
+        Booking booking = Booking.builder()
+                .id(new UUID(0, ++bookingSequence))
+                .estimatedDurationMinutes(minutes)
+                .build();
+        return entry(booking, barberId, status);
+    }
+
+    private Queue entry(Booking booking, UUID barberId, QueueStatus status) {
+        return Queue.builder()
+                .salon(salon)
+                .booking(booking)
+                .barber(Barber.builder().id(barberId).build())
+                .status(status)
+                .build();
+    }
+}
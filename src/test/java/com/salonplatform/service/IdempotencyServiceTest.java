@@ -0,0 +1,108 @@
+package com.salonplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.salonplatform.dto.BookingResponse;
+import com.salonplatform.dto.CreateBookingRequest;
+import com.salonplatform.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A retried booking request runs once and gets the first response back.
+ */
+class IdempotencyServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final IdempotencyService service = service(10);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void replaysResponseWithoutRunningAgain() {
+        CreateBookingRequest request = request();
+
+        BookingResponse first = service.execute("booking-online:u1", "key-1", request, BookingResponse.class, this::book);
+        BookingResponse retry = service.execute("booking-online:u1", "key-1", request, BookingResponse.class, this::book);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, retry);
+    }
+
+    @Test
+    void rejectsKeyReusedForDifferentRequest() {
+        service.execute("booking-online:u1", "key-1", request(), BookingResponse.class, this::book);
+
+        assertThrows(BusinessException.class, () ->
+                service.execute("booking-online:u1", "key-1", request(), BookingResponse.class, this::book));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void keysAreScopedPerCaller() {
+        CreateBookingRequest request = request();
+
+        service.execute("booking-online:u1", "key-1", request, BookingResponse.class, this::book);
+        service.execute("booking-online:u2", "key-1", request, BookingResponse.class, this::book);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void failedRequestReleasesItsKey() {
+        CreateBookingRequest request = request();
+
+        assertThrows(BusinessException.class, () ->
+                service.execute("booking-online:u1", "key-1", request, BookingResponse.class, () -> {
+                    runs.incrementAndGet();
+                    throw new BusinessException("Salon is closed");
+                }));
+        service.execute("booking-online:u1", "key-1", request, BookingResponse.class, this::book);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void oldestKeysAreEvictedWhenFull() {
+        IdempotencyService bounded = service(2);
+        CreateBookingRequest request = request();
+
+        for (String key : new String[]{"a", "b", "c", "a"}) {
+            bounded.execute("booking-online:u1", key, request, BookingResponse.class, this::book);
+        }
+
+        // "a" was evicted by "c", so its retry ran again
+        assertEquals(4, runs.get());
+    }
+
+    private BookingResponse book() {
+        runs.incrementAndGet();
+        return BookingResponse.builder()
+                .bookingId(UUID.randomUUID())
+                .status("PENDING")
+                .estimatedStartTime(LocalDateTime.of(2026, 1, 5, 10, 30))
+                .build();
+    }
+
+    private IdempotencyService service(int maxEntries) {
+        IdempotencyService idempotencyService =
+                new IdempotencyService(new InMemoryIdempotencyStore(maxEntries), objectMapper);
+        ReflectionTestUtils.setField(idempotencyService, "ttlMinutes", 60L);
+        return idempotencyService;
+    }
+
+    private static CreateBookingRequest request() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setSalonId(UUID.randomUUID());
+        request.setServiceId(UUID.randomUUID());
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.enums.BookingType;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Online admissions stop at the salon's online share, even under a burst.
+ */
+class OnlineCapacityLimiterTest {
+
+    private final Salon salon = Salon.builder().id(UUID.randomUUID()).onlineBookingPercentage(70).build();
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final BarberRepository barberRepository = Mockito.mock(BarberRepository.class);
+    private final OnlineCapacityLimiter limiter =
+            new OnlineCapacityLimiter(bookingRepository, barberRepository, Clock.systemDefaultZone());
+
+    OnlineCapacityLimiterTest() {
+        // 3 barbers x 10 x 70% = 21 online bookings
+        ReflectionTestUtils.setField(limiter, "bookingsPerBarber", 10);
+        when(barberRepository.countBySalonIdAndIsAvailableTrue(salon.getId())).thenReturn(3L);
+        when(bookingRepository.countOutstandingOnlineBookings(eq(salon.getId()), any(), any())).thenReturn(1L);
+    }
+
+    @Test
+    void concurrentBurstNeverOverAdmits() throws Exception {
+        assertTrue(limiter.tryAcquire(salon));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            requests.add(pool.submit(() -> {
+                start.await();
+                if (limiter.tryAcquire(salon)) {
+                    admitted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> request : requests) {
+            request.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(19, admitted.get());
+        // Loaded on the first admission, never counted per admission
+        verify(bookingRepository, times(1)).countOutstandingOnlineBookings(eq(salon.getId()), any(), any());
+    }
+
+    @Test
+    void releasedCapacityIsReusedAndReconcileResetsDrift() {
+        while (limiter.tryAcquire(salon)) {
+        }
+
+        limiter.release(onlineBooking(BookingStatus.CONFIRMED));
+        limiter.release(onlineBooking(BookingStatus.IN_PROGRESS)); // already released when started
+        assertTrue(limiter.tryAcquire(salon));
+        assertFalse(limiter.tryAcquire(salon));
+
+        when(bookingRepository.countOutstandingOnlineBookings(eq(salon.getId()), any(), any())).thenReturn(5L);
+        limiter.reconcile();
+        assertTrue(limiter.tryAcquire(salon));
+    }
+
+    @Test
+    void salonWithNoBarberOnDutyCountsAsOne() {
+        when(barberRepository.countBySalonIdAndIsAvailableTrue(salon.getId())).thenReturn(0L);
+        when(bookingRepository.countOutstandingOnlineBookings(eq(salon.getId()), any(), any())).thenReturn(0L);
+
+        // 1 barber x 10 x 70% = 7 online bookings
+        int admitted = 0;
+        while (limiter.tryAcquire(salon)) {
+            admitted++;
+        }
+        assertEquals(7, admitted);
+    }
+
+    private Booking onlineBooking(BookingStatus status) {
+        return Booking.builder()
+                .salon(salon)
+                .bookingType(BookingType.ONLINE)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.OutboxEvent;
+import com.salonplatform.entity.User;
+import com.salonplatform.enums.OutboxEventType;
+import com.salonplatform.enums.OutboxStatus;
+import com.salonplatform.repository.BarberRepository;
+import com.salonplatform.repository.BookingRepository;
+import com.salonplatform.repository.OutboxEventRepository;
+import com.salonplatform.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outbox events are applied once when claimed, retried with backoff when
+ * applying fails, and parked as FAILED after the last attempt.
+ */
+class OutboxDispatcherTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-02T10:00:00Z"), ZoneOffset.UTC);
+    private final LocalDateTime now = LocalDateTime.now(clock);
+
+    private final OutboxEventRepository outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final UserRepository userRepository = Mockito.mock(UserRepository.class);
+    private final NotificationService notificationService = Mockito.mock(NotificationService.class);
+    private final OutboxDispatcher dispatcher = new OutboxDispatcher(outboxEventRepository, bookingRepository,
+            userRepository, Mockito.mock(BarberRepository.class), notificationService,
+            Mockito.mock(QueueService.class), new NoOpTransactionManager(), clock);
+
+    private final Booking booking = Booking.builder()
+            .id(UUID.randomUUID())
+            .customer(User.builder().id(UUID.randomUUID()).build())
+            .build();
+    private final OutboxEvent event = OutboxEvent.builder()
+            .id(UUID.randomUUID())
+            .type(OutboxEventType.BOOKING_CONFIRMED)
+            .bookingId(booking.getId())
+            .status(OutboxStatus.PENDING)
+            .attempts(0)
+            .createdAt(now)
+            .nextAttemptAt(now)
+            .build();
+
+    OutboxDispatcherTest() {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoffMs", 1000L);
+
+        when(outboxEventRepository.findDueIds(eq(OutboxStatus.PENDING), any(), any()))
+                .thenReturn(List.of(event.getId()));
+        when(outboxEventRepository.lockByIdAndStatus(event.getId(), OutboxStatus.PENDING))
+                .thenReturn(Optional.of(event));
+        when(outboxEventRepository.findById(event.getId())).thenReturn(Optional.of(event));
+        when(bookingRepository.findById(booking.getId())).thenReturn(Optional.of(booking));
+    }
+
+    @Test
+    void claimedEventIsAppliedAndMarkedDispatched() {
+        assertEquals(1, dispatcher.dispatchDue());
+
+        verify(userRepository).incrementTotalBookings(booking.getCustomer().getId());
+        verify(notificationService).sendBookingConfirmation(booking);
+        assertEquals(OutboxStatus.DISPATCHED, event.getStatus());
+        assertEquals(now, event.getDispatchedAt());
+        assertEquals(1, event.getAttempts());
+    }
+
+    @Test
+    void eventHeldByAnotherNodeIsSkipped() {
+        when(outboxEventRepository.lockByIdAndStatus(event.getId(), OutboxStatus.PENDING))
+                .thenReturn(Optional.empty());
+
+        assertEquals(0, dispatcher.dispatchDue());
+
+        verifyNoInteractions(notificationService);
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+    }
+
+    @Test
+    void failedEventIsRetriedWithExponentialBackoff() {
+        doThrow(new IllegalStateException("sms gateway down"))
+                .when(notificationService).sendBookingConfirmation(booking);
+
+        dispatcher.dispatchDue();
+        assertEquals(OutboxStatus.PENDING, event.getStatus());
+        assertEquals(1, event.getAttempts());
+        assertEquals(now.plusSeconds(1), event.getNextAttemptAt());
+        assertTrue(event.getLastError().contains("sms gateway down"));
+
+        dispatcher.dispatchDue();
+        assertEquals(2, event.getAttempts());
+        assertEquals(now.plusSeconds(2), event.getNextAttemptAt());
+    }
+
+    @Test
+    void eventIsParkedAsFailedAfterLastAttempt() {
+        doThrow(new IllegalStateException("sms gateway down"))
+                .when(notificationService).sendBookingConfirmation(booking);
+
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatchDue();
+        }
+
+        assertEquals(OutboxStatus.FAILED, event.getStatus());
+        assertEquals(3, event.getAttempts());
+        assertNull(event.getDispatchedAt());
+    }
+
+    /** Runs transaction callbacks inline; the repositories are mocks */
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueDeltaResponse;
+import com.salonplatform.dto.QueueResponse;
+import com.salonplatform.dto.QueueSnapshotResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Deltas and snapshots carry the tracker's epoch, so a client can tell
+ * versions from before a restart from the ones after it.
+ */
+class QueueDeltaTrackerTest {
+
+    private final UUID salonId = UUID.randomUUID();
+
+    @Test
+    void deltasAndSnapshotsCarryTheEpoch() throws Exception {
+        QueueDeltaTracker before = new QueueDeltaTracker();
+        QueueDeltaResponse delta = before.publish(salonId, List.of(entry(1)), d -> { });
+        assertEquals(before.getEpoch(), delta.getEpoch());
+        assertEquals(1L, delta.getVersion());
+
+        Thread.sleep(5);
+        QueueDeltaTracker restarted = new QueueDeltaTracker();
+        QueueSnapshotResponse snapshot = restarted.snapshot(salonId, () -> List.of(entry(1)));
+        QueueDeltaResponse next = restarted.publish(salonId, List.of(entry(1), entry(2)), d -> { });
+
+        // Same version numbers again, told apart by the epoch
+        assertEquals(restarted.getEpoch(), snapshot.getEpoch());
+        assertEquals(restarted.getEpoch(), next.getEpoch());
+        assertEquals(1L, next.getVersion());
+        assertNotEquals(delta.getEpoch(), next.getEpoch());
+    }
+
+    private static QueueResponse entry(int position) {
+        return QueueResponse.builder()
+                .queueId(new UUID(0, position))
+                .bookingId(new UUID(1, position))
+                .position(position)
+                .status("WAITING")
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.AvailabilityResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Availability is computed once per change on the sender pool, never on
+ * the publishing thread, and changes arriving while it is computed are
+ * folded into one more computation.
+ */
+class QueueEventStreamsTest {
+
+    private final SalonService salonService = Mockito.mock(SalonService.class);
+    private final QueueEventStreams streams = new QueueEventStreams(salonService,
+            new QueueSubscriptionRegistry(event -> { }, new SimpleMeterRegistry(), false, "simple"), 2, 16);
+    private final UUID salonId = UUID.randomUUID();
+
+    @AfterEach
+    void shutdown() {
+        streams.shutdown();
+    }
+
+    @Test
+    void computesAvailabilityOncePerChangeOffThePublisher() throws Exception {
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(salonService.getAvailability(salonId)).thenAnswer(invocation -> {
+            computing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return new AvailabilityResponse();
+        });
+        for (int i = 0; i < 3; i++) {
+            streams.open(salonId, QueueEventStreams.Stream.AVAILABILITY, AvailabilityResponse::new);
+        }
+
+        streams.publish(salonId, List.of(), 1L);
+        assertTrue(computing.await(5, TimeUnit.SECONDS));
+
+        // Publisher is not held up by the computation in progress
+        for (long version = 2; version <= 20; version++) {
+            streams.publish(salonId, List.of(), version);
+        }
+        release.countDown();
+
+        verify(salonService, timeout(5_000).times(2)).getAvailability(salonId);
+        Thread.sleep(200);
+        verify(salonService, times(2)).getAvailability(salonId);
+    }
+}
@@ -0,0 +1,157 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueDeltaResponse;
+import com.salonplatform.dto.QueueEntryMove;
+import com.salonplatform.dto.QueueResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bytes per update of CBOR queue frames against the JSON frames STOMP
+ * sends by default. Encoding cost is a "load" benchmark.
+ */
+@Slf4j
+class QueueFrameCodecTest {
+
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final QueueFrameCodec cbor = new QueueFrameCodec(false);
+    private final QueueFrameCodec cborStringRefs = new QueueFrameCodec(true);
+
+    @Test
+    void cborRoundTripsQueueDelta() {
+        QueueDeltaResponse delta = moveDelta(12);
+
+        QueueDeltaResponse decoded = cbor.decode(cbor.encode(delta), QueueDeltaResponse.class);
+
+        assertEquals(delta.getVersion(), decoded.getVersion());
+        assertEquals(delta.getRemoved(), decoded.getRemoved());
+        assertEquals(delta.getMoved(), decoded.getMoved());
+        // Empty collections are not written at all
+        assertNull(decoded.getInserted());
+    }
+
+    @Test
+    void cborFramesAreSmallerThanJson() {
+        for (Map.Entry<String, QueueDeltaResponse> frame : frames().entrySet()) {
+            QueueDeltaResponse delta = frame.getValue();
+            byte[] jsonBytes = json.writeValueAsBytes(delta);
+            byte[] cborBytes = cbor.encode(delta);
+            byte[] refBytes = cborStringRefs.encode(delta);
+
+            log.debug(String.format("%-34s json %5d B (deflate %4d) | cbor %5d B (deflate %4d) | cbor+stringref %5d B",
+                    frame.getKey(), jsonBytes.length, deflated(jsonBytes),
+                    cborBytes.length, deflated(cborBytes), refBytes.length));
+
+            assertTrue(cborBytes.length < jsonBytes.length, frame.getKey());
+            assertTrue(refBytes.length <= cborBytes.length, frame.getKey());
+        }
+    }
+
+    @Test
+    @Tag("load")
+    void benchmarkEncodeCost() {
+        for (Map.Entry<String, QueueDeltaResponse> frame : frames().entrySet()) {
+            QueueDeltaResponse delta = frame.getValue();
+            log.info(String.format("%-34s json %6d ns/encode | cbor %6d ns/encode", frame.getKey(),
+                    nanosPerEncode(json::writeValueAsBytes, delta),
+                    nanosPerEncode(cbor::encode, delta)));
+        }
+    }
+
+    private static Map<String, QueueDeltaResponse> frames() {
+        Map<String, QueueDeltaResponse> frames = new LinkedHashMap<>();
+        frames.put("single insert", insertDelta(1));
+        frames.put("completion (1 removed, 12 moved)", moveDelta(12));
+        frames.put("full resync (30 entries)", insertDelta(30));
+        return frames;
+    }
+
+    private static long nanosPerEncode(Function<Object, byte[]> encoder, Object frame) {
+        int iterations = 20_000;
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += encoder.apply(frame).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += encoder.apply(frame).length;
+        }
+        assertTrue(sink > 0);
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static int deflated(byte[] bytes) {
+        // Raw deflate, as permessage-deflate sends it
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.size();
+    }
+
+    private static QueueDeltaResponse insertDelta(int entries) {
+        List<QueueResponse> inserted = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.of(2026, 10, 19, 10, 30, 15, 123_000_000);
+        for (int i = 1; i <= entries; i++) {
+            inserted.add(QueueResponse.builder()
+                    .queueId(UUID.randomUUID())
+                    .bookingId(UUID.randomUUID())
+                    .customerName("Customer " + i)
+                    .serviceName("Haircut & Beard Trim")
+                    .barberName("Any")
+                    .position(i)
+                    .estimatedWaitMinutes(i * 15)
+                    .estimatedStartTime(now.plusMinutes(i * 15L))
+                    .status("WAITING")
+                    .bookingType(i % 3 == 0 ? "WALKIN" : "ONLINE")
+                    .isPaid(i % 3 != 0)
+                    .addedAt(now.minusMinutes(i))
+                    .build());
+        }
+        return QueueDeltaResponse.builder()
+                .salonId(UUID.randomUUID())
+                .version(42L)
+                .previousVersion(41L)
+                .inserted(inserted)
+                .removed(List.of())
+                .moved(List.of())
+                .build();
+    }
+
+    private static QueueDeltaResponse moveDelta(int moved) {
+        List<QueueEntryMove> moves = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.of(2026, 10, 19, 10, 30, 15, 123_000_000);
+        for (int i = 1; i <= moved; i++) {
+            moves.add(QueueEntryMove.builder()
+                    .queueId(UUID.randomUUID())
+                    .position(i)
+                    .estimatedWaitMinutes(i * 10)
+                    .estimatedStartTime(now.plusMinutes(i * 10L))
+                    .status("WAITING")
+                    .build());
+        }
+        return QueueDeltaResponse.builder()
+                .salonId(UUID.randomUUID())
+                .version(43L)
+                .previousVersion(42L)
+                .inserted(List.of())
+                .removed(List.of(UUID.randomUUID()))
+                .moved(moves)
+                .build();
+    }
+}
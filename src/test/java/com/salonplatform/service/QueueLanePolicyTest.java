@@ -0,0 +1,170 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.BookingType;
+import com.salonplatform.enums.QueueStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lane interleaving of QueueLanePolicy. The "load" benchmark compares its
+ * placement cost on high-churn queues against inserting into a
+ * position-ordered list and renumbering everyone behind.
+ */
+@Slf4j
+class QueueLanePolicyTest {
+
+    @Test
+    void servesLanesInOnlineRatioWhileBothAreWaiting() {
+        Salon salon = salon(70);
+        QueueLanePolicy policy = new QueueLanePolicy(true);
+        List<Queue> queue = new ArrayList<>();
+
+        // Walk-ins flood the queue first, then online bookings arrive
+        for (int i = 0; i < 600; i++) {
+            join(policy, salon, queue, BookingType.WALKIN);
+        }
+        for (int i = 0; i < 600; i++) {
+            join(policy, salon, queue, BookingType.ONLINE);
+        }
+
+        int online = 0;
+        for (int i = 0; i < 500; i++) {
+            Queue next = queue.remove(0);
+            policy.started(next);
+            if (next.getBooking().getBookingType() == BookingType.ONLINE) {
+                online++;
+            }
+        }
+
+        assertEquals(350, online, 10);
+    }
+
+    @Test
+    void fifoWhenDisabled() {
+        Salon salon = salon(70);
+        QueueLanePolicy policy = new QueueLanePolicy(false);
+        List<Queue> queue = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            Queue entry = join(policy, salon, queue, i % 3 == 0 ? BookingType.ONLINE : BookingType.WALKIN);
+            assertEquals(i + 1, entry.getPosition());
+        }
+    }
+
+    @Test
+    @Tag("load")
+    void benchmarkHighChurnPlacement() {
+        int[] queueSizes = {100, 1_000, 10_000};
+        int operations = Integer.getInteger("bench.lanes.ops", 200_000);
+
+        for (int size : queueSizes) {
+            long policyNanos = churn(size, operations, true);
+            long renumberNanos = churn(size, operations, false);
+
+            log.info(String.format("queue %6d: lanes %6d ns/op | list insert + renumber %7d ns/op",
+                    size, policyNanos / operations, renumberNanos / operations));
+            if (size >= 10_000) {
+                assertTrue(policyNanos < renumberNanos, "lane placement should beat renumbering at " + size);
+            }
+        }
+    }
+
+    /**
+     * Keep the queue around the given size with a random mix of joins
+     * (70% online), services from the head and cancellations anywhere.
+     * Positions must always match the entry's index in the queue.
+     */
+    private long churn(int size, int operations, boolean lanes) {
+        Salon salon = salon(70);
+        QueueLanePolicy policy = new QueueLanePolicy(true);
+        List<Queue> queue = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < size; i++) {
+            join(policy, salon, queue, type(random));
+        }
+
+        long started = System.nanoTime();
+        for (int op = 0; op < operations; op++) {
+            int roll = random.nextInt(10);
+            if (roll < 5 || queue.isEmpty()) {
+                BookingType type = type(random);
+                if (lanes) {
+                    Queue entry = join(policy, salon, queue, type);
+                    assertSame(entry, queue.get(entry.getPosition() - 1));
+                } else {
+                    renumberInsert(queue, entry(salon, type, random.nextLong()));
+                }
+            } else {
+                Queue leaving = queue.remove(roll < 9 ? 0 : random.nextInt(queue.size()));
+                if (lanes) {
+                    policy.removed(leaving);
+                } else {
+                    renumberFrom(queue, 0);
+                }
+            }
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static Queue join(QueueLanePolicy policy, Salon salon, List<Queue> queue, BookingType type) {
+        QueueLanePolicy.Placement placement = policy.place(salon, type, queue.size(), () -> queue);
+        Queue entry = entry(salon, type, placement.tag());
+        entry.setPosition(placement.position());
+        queue.add(placement.position() - 1, entry);
+        return entry;
+    }
+
+    /** Baseline: position-ordered list where every entry behind is renumbered */
+    private static void renumberInsert(List<Queue> queue, Queue entry) {
+        int low = 0;
+        int high = queue.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (queue.get(mid).getLaneTag() < entry.getLaneTag()) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        queue.add(low, entry);
+        renumberFrom(queue, low);
+    }
+
+    private static void renumberFrom(List<Queue> queue, int from) {
+        for (int i = from; i < queue.size(); i++) {
+            queue.get(i).setPosition(i + 1);
+        }
+    }
+
+    private static BookingType type(Random random) {
+        return random.nextInt(10) < 7 ? BookingType.ONLINE : BookingType.WALKIN;
+    }
+
+    private static Salon salon(int onlinePercentage) {
+        Salon salon = new Salon();
+        salon.setId(UUID.randomUUID());
+        salon.setAcceptsOnlineBooking(true);
+        salon.setOnlineBookingPercentage(onlinePercentage);
+        return salon;
+    }
+
+    private static Queue entry(Salon salon, BookingType type, long tag) {
+        Booking booking = new Booking();
+        booking.setBookingType(type);
+        return Queue.builder()
+                .salon(salon)
+                .booking(booking)
+                .laneTag(tag)
+                .status(QueueStatus.WAITING)
+                .build();
+    }
+}
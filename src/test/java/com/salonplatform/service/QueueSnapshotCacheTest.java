@@ -0,0 +1,92 @@
+package com.salonplatform.service;
+
+import com.salonplatform.dto.QueueResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads that raced a queue change never replace it, and a change is in the
+ * cache before its salon's lane is released.
+ */
+class QueueSnapshotCacheTest {
+
+    private final QueueSnapshotCache cache = new QueueSnapshotCache();
+    private final UUID salonId = UUID.randomUUID();
+
+    @AfterEach
+    void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void loadStartedBeforePublishDoesNotReplaceIt() {
+        long loadStartedAt = cache.beginLoad();
+        cache.publish(salonId, List.of(entry(1)));
+
+        QueueSnapshotCache.CachedQueue cached = cache.refresh(salonId, List.of(), loadStartedAt);
+
+        assertEquals(1, cached.getQueue().size());
+        assertEquals(1, cache.get(salonId).orElseThrow().getQueue().size());
+    }
+
+    @Test
+    void loadStartedBeforeEvictIsNotCached() {
+        long loadStartedAt = cache.beginLoad();
+        cache.evict(salonId);
+
+        QueueSnapshotCache.CachedQueue loaded = cache.refresh(salonId, List.of(entry(1)), loadStartedAt);
+
+        assertEquals(1, loaded.getQueue().size());
+        assertTrue(cache.get(salonId).isEmpty());
+    }
+
+    @Test
+    void loadAfterChangeIsCached() {
+        cache.publish(salonId, List.of(entry(1)));
+
+        cache.refresh(salonId, List.of(entry(1), entry(2)), cache.beginLoad());
+
+        assertEquals(2, cache.get(salonId).orElseThrow().getQueue().size());
+    }
+
+    @Test
+    void publishedBeforeLaneIsReleased() {
+        SalonQueueLanes lanes = new SalonQueueLanes();
+        TransactionSynchronizationManager.initSynchronization();
+        lanes.execute(salonId, () -> cache.publish(salonId, List.of(entry(1))));
+
+        @SuppressWarnings("unchecked")
+        ReentrantLock lane = ((Map<UUID, ReentrantLock>) ReflectionTestUtils.getField(lanes, "lanes")).get(salonId);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            if (!lane.isLocked()) {
+                assertTrue(cache.get(salonId).isPresent(), "lane released before the queue was cached");
+            }
+        }
+        assertFalse(lane.isLocked());
+    }
+
+    private static QueueResponse entry(int position) {
+        return QueueResponse.builder()
+                .queueId(UUID.randomUUID())
+                .bookingId(UUID.randomUUID())
+                .position(position)
+                .status("WAITING")
+                .build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.salonplatform.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Learned durations: EWMA updates, fallback while samples are scarce, and
+ * P-square p90 accuracy. Runs without a Spring context.
+ */
+class ServiceDurationEstimatorTest {
+
+    private final ServiceDurationEstimator estimator = new ServiceDurationEstimator();
+    private final UUID serviceId = UUID.randomUUID();
+    private final UUID barberId = UUID.randomUUID();
+
+    ServiceDurationEstimatorTest() {
+        ReflectionTestUtils.setField(estimator, "alpha", 0.2);
+        ReflectionTestUtils.setField(estimator, "minSamples", 3);
+    }
+
+    @Test
+    void ewmaWeighsRecentSamples() {
+        estimator.record(serviceId, barberId, 30);
+        estimator.record(serviceId, barberId, 40);
+        estimator.record(serviceId, barberId, 50);
+
+        // 30 -> 0.2*40 + 0.8*30 = 32 -> 0.2*50 + 0.8*32 = 35.6
+        assertEquals(36, estimator.estimateMinutes(serviceId, barberId, 20));
+    }
+
+    @Test
+    void fallsBackFromBarberToServiceToMenuDuration() {
+        estimator.record(serviceId, barberId, 40);
+        estimator.record(serviceId, barberId, 40);
+        assertEquals(20, estimator.estimateMinutes(serviceId, barberId, 20));
+        assertEquals(20, estimator.estimateP90Minutes(serviceId, barberId, 20));
+
+        // Three samples for the service, but only two from this barber
+        UUID otherBarber = UUID.randomUUID();
+        estimator.record(serviceId, otherBarber, 40);
+        assertEquals(40, estimator.estimateMinutes(serviceId, barberId, 20));
+
+        assertEquals(20, estimator.estimateMinutes(UUID.randomUUID(), barberId, 20));
+        assertEquals(20, estimator.estimateMinutes(null, barberId, 20));
+    }
+
+    @Test
+    void appliesSamplesOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) {
+                estimator.record(serviceId, barberId, 40);
+            }
+            List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertEquals(20, estimator.estimateMinutes(serviceId, barberId, 20));
+
+            TransactionSynchronizationManager.initSynchronization();
+            for (int i = 0; i < 3; i++) {
+                estimator.record(serviceId, barberId, 40);
+            }
+            assertEquals(20, estimator.estimateMinutes(serviceId, barberId, 20));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(40, estimator.estimateMinutes(serviceId, barberId, 20));
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
+    @Test
+    void ignoresImplausibleSamples() {
+        estimator.record(serviceId, barberId, 0);
+        estimator.record(serviceId, barberId, 9 * 60);
+        estimator.record(serviceId, barberId, 30);
+        estimator.record(serviceId, barberId, 30);
+
+        assertEquals(20, estimator.estimateMinutes(serviceId, barberId, 20));
+        estimator.record(serviceId, barberId, 30);
+        assertEquals(30, estimator.estimateMinutes(serviceId, barberId, 20));
+    }
+
+    @Test
+    void p2QuantileTracksP90OfKnownDistributions() {
+        Random random = new Random(42);
+        int n = 20_000;
+
+        ServiceDurationEstimator.P2Quantile uniform = new ServiceDurationEstimator.P2Quantile(0.9);
+        ServiceDurationEstimator.P2Quantile normal = new ServiceDurationEstimator.P2Quantile(0.9);
+        ServiceDurationEstimator.P2Quantile exponential = new ServiceDurationEstimator.P2Quantile(0.9);
+        double[] exponentialSamples = new double[n];
+        for (int i = 0; i < n; i++) {
+            uniform.add(100 * random.nextDouble());
+            normal.add(30 + 5 * random.nextGaussian());
+            exponentialSamples[i] = -20 * Math.log(1 - random.nextDouble());
+            exponential.add(exponentialSamples[i]);
+        }
+
+        // U(0,100): 90; N(30,5): 30 + 1.2816*5; Exp(mean 20): 20*ln(10)
+        assertEquals(90.0, uniform.value(), 1.5);
+        assertEquals(36.41, normal.value(), 0.5);
+        assertEquals(46.05, exponential.value(), 1.5);
+
+        Arrays.sort(exponentialSamples);
+        assertEquals(exponentialSamples[(int) (0.9 * n)], exponential.value(), 1.5);
+    }
+
+    @Test
+    void p2QuantileUsesExactQuantileForFirstSamples() {
+        ServiceDurationEstimator.P2Quantile p90 = new ServiceDurationEstimator.P2Quantile(0.9);
+        assertEquals(0, p90.value());
+
+        p90.add(10);
+        p90.add(40);
+        p90.add(20);
+        assertEquals(40, p90.value());
+    }
+}
@@ -0,0 +1,120 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Barber;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.*;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Online bookings get real, non-overlapping appointment slots per barber.
+ */
+@Slf4j
+class SlotCalendarTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+    private static final LocalTime CLOSING = LocalTime.of(21, 0);
+
+    private final BookingRepository bookingRepository = Mockito.mock(BookingRepository.class);
+    private final Clock clock = Clock.fixed(DAY.atTime(9, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    private final UUID barberId = UUID.randomUUID();
+
+    @Test
+    void firstFitSkipsRunsThatAreTooShort() {
+        BitSet slots = new BitSet();
+        slots.set(2, 4);
+        slots.set(6, 70);
+
+        assertEquals(0, SlotCalendar.firstFit(slots, 0, 288, 2));
+        assertEquals(4, SlotCalendar.firstFit(slots, 1, 288, 2));
+        assertEquals(70, SlotCalendar.firstFit(slots, 1, 288, 3));
+        assertEquals(-1, SlotCalendar.firstFit(slots, 1, 72, 3));
+    }
+
+    @Test
+    void reservationsDoNotOverlapAndFreedSlotsAreReused() {
+        SlotCalendar calendar = calendar(List.of());
+        LocalDateTime nine = DAY.atTime(9, 0);
+
+        LocalDateTime first = calendar.reserve(barberId, nine, CLOSING, 30).orElseThrow();
+        LocalDateTime second = calendar.reserve(barberId, nine.plusMinutes(2), CLOSING, 20).orElseThrow();
+
+        assertEquals(nine, first);
+        assertEquals(nine.plusMinutes(30), second);
+
+        calendar.release(booking(first, 30));
+        assertEquals(nine, calendar.reserve(barberId, nine, CLOSING, 25).orElseThrow());
+    }
+
+    @Test
+    void loadsHeldSlotsAndRespectsClosingTime() {
+        SlotCalendar calendar = calendar(List.of(booking(DAY.atTime(20, 0), 45)));
+
+        assertEquals(DAY.atTime(20, 45), calendar.reserve(barberId, DAY.atTime(19, 50), null, 15).orElseThrow());
+        assertTrue(calendar.reserve(barberId, DAY.atTime(19, 50), CLOSING, 15).isEmpty());
+    }
+
+    @Test
+    @Tag("load")
+    void reservesInMicroseconds() {
+        SlotCalendar calendar = calendar(List.of());
+        int barbers = 1_000;
+        UUID[] ids = new UUID[barbers];
+        for (int i = 0; i < barbers; i++) {
+            ids[i] = new UUID(0, i);
+            // Load each day up front; the measured path never touches the repository
+            calendar.reserve(ids[i], DAY.atTime(8, 0), LocalTime.of(8, 5), 5);
+        }
+
+        int reservations = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < 20; round++) {
+            for (UUID id : ids) {
+                // Fragment the day: every other booking is released again
+                LocalDateTime slot = calendar.reserve(id, DAY.atTime(9, 0), CLOSING, 15 + round % 4 * 10).orElseThrow();
+                if (round % 2 == 1) {
+                    calendar.release(Booking.builder()
+                            .barber(Barber.builder().id(id).build())
+                            .slotStartTime(slot)
+                            .estimatedDurationMinutes(15 + round % 4 * 10)
+                            .build());
+                }
+                reservations++;
+            }
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / reservations;
+
+        log.info(String.format("%d reservations across %d barbers: %.2f us each", reservations, barbers, micros));
+        assertTrue(micros < 100);
+    }
+
+    private SlotCalendar calendar(List<Booking> held) {
+        when(bookingRepository.findSlotHolders(eq(barberId), any(), any(), any())).thenReturn(held);
+        SlotCalendar calendar = new SlotCalendar(bookingRepository, clock);
+        ReflectionTestUtils.setField(calendar, "granularityMinutes", 5);
+        return calendar;
+    }
+
+    private Booking booking(LocalDateTime slot, int minutes) {
+        return Booking.builder()
+                .barber(Barber.builder().id(barberId).build())
+                .status(BookingStatus.CONFIRMED)
+                .slotStartTime(slot)
+                .estimatedDurationMinutes(minutes)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.salonplatform.service;
+
+import com.salonplatform.entity.Barber;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.QueueStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correctness checks for the multi-barber wait simulation, plus a "load"
+ * throughput benchmark. Runs without a Spring context.
+ */
+@Slf4j
+class WaitTimeEstimatorTest {
+
+    private static final int ANY = WaitTimeEstimator.ANY_BARBER;
+
+    @Test
+    void parallelBarbersShareTheQueue() {
+        // 5 barbers, 10 waiting customers of 30 minutes each
+        int[] server = new int[10];
+        int[] minutes = new int[10];
+        Arrays.fill(server, ANY);
+        Arrays.fill(minutes, 30);
+
+        WaitTimeEstimator.SimulationResult result =
+                WaitTimeEstimator.simulate(5, server, minutes, new boolean[10]);
+
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 30, 30, 30, 30, 30}, result.waitMinutes);
+        assertEquals(60, result.nextAvailableMinutes);
+    }
+
+    @Test
+    void inServiceAndPinnedBarbersAreRespected() {
+        // Barber 0 has 20 minutes left; customer 1 is pinned to barber 0,
+        // customer 2 takes whoever is free first (barber 1)
+        int[] server = {0, 0, ANY};
+        int[] minutes = {20, 15, 10};
+        boolean[] inService = {true, false, false};
+
+        WaitTimeEstimator.SimulationResult result =
+                WaitTimeEstimator.simulate(2, server, minutes, inService);
+
+        assertEquals(0, result.waitMinutes[0]);
+        assertEquals(20, result.waitMinutes[1]);
+        assertEquals(0, result.waitMinutes[2]);
+        assertEquals(10, result.nextAvailableMinutes);
+    }
+
+    @Test
+    void noBarbersFallsBackToSingleServer() {
+        int[] server = {ANY, ANY, ANY};
+        int[] minutes = {10, 20, 30};
+
+        WaitTimeEstimator.SimulationResult result =
+                WaitTimeEstimator.simulate(0, server, minutes, new boolean[3]);
+
+        assertArrayEquals(new int[]{0, 10, 30}, result.waitMinutes);
+        assertEquals(60, result.nextAvailableMinutes);
+    }
+
+    @Test
+    void overrunningServiceIsGivenUntilItsP90() {
+        ServiceDurationEstimator durations = new ServiceDurationEstimator();
+        ReflectionTestUtils.setField(durations, "alpha", 0.2);
+        ReflectionTestUtils.setField(durations, "minSamples", 5);
+        UUID serviceId = UUID.randomUUID();
+        Barber barber = Barber.builder().id(UUID.randomUUID()).build();
+        for (int i = 0; i < 200; i++) {
+            durations.record(serviceId, barber.getId(), 20 + (i * 7) % 31);
+        }
+        int mean = durations.estimateMinutes(serviceId, barber.getId(), 30);
+        int p90 = durations.estimateP90Minutes(serviceId, barber.getId(), 30);
+        assertTrue(p90 > mean + 5, "mean " + mean + ", p90 " + p90);
+
+        LocalDateTime now = LocalDateTime.of(2026, 1, 5, 12, 0);
+        com.salonplatform.entity.Service service = com.salonplatform.entity.Service.builder().id(serviceId).build();
+        Queue running = Queue.builder().id(UUID.randomUUID()).barber(barber).status(QueueStatus.IN_SERVICE)
+                .booking(Booking.builder().service(service).estimatedDurationMinutes(30)
+                        .actualStartTime(now.minusMinutes(mean + 5)).build())
+                .build();
+        Queue next = Queue.builder().id(UUID.randomUUID()).barber(barber).status(QueueStatus.WAITING)
+                .booking(Booking.builder().service(service).estimatedDurationMinutes(30).build())
+                .build();
+
+        WaitTimeEstimator estimator = new WaitTimeEstimator(null, null, durations, Clock.systemDefaultZone());
+        WaitTimeEstimator.WaitEstimate estimate = estimator.estimate(List.of(running, next), List.of(barber), now);
+
+        // Past its mean, the running service is expected to end at its p90, not now
+        assertEquals(p90 - (mean + 5), estimate.waitFor(next.getId()));
+    }
+
+    @Test
+    @Tag("load")
+    void benchmarkSimulation() {
+        int[][] shapes = {{50, 2}, {500, 5}, {5_000, 50}};
+        Random random = new Random(42);
+
+        for (int[] shape : shapes) {
+            int n = shape[0];
+            int b = shape[1];
+            int[] server = new int[n];
+            int[] minutes = new int[n];
+            boolean[] inService = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                server[i] = random.nextInt(4) == 0 ? random.nextInt(b) : ANY;
+                minutes[i] = 10 + random.nextInt(50);
+                inService[i] = i < b;
+            }
+
+            // Warm up, then measure
+            for (int i = 0; i < 2_000; i++) {
+                WaitTimeEstimator.simulate(b, server, minutes, inService);
+            }
+            int iterations = 2_000;
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (int i = 0; i < iterations; i++) {
+                checksum += WaitTimeEstimator.simulate(b, server, minutes, inService).nextAvailableMinutes;
+            }
+            long nanosPerRun = (System.nanoTime() - start) / iterations;
+
+            log.info(String.format("wait simulation n=%d b=%d: %d ns/run (%.1f ns/entry) [%d]",
+                    n, b, nanosPerRun, (double) nanosPerRun / n, checksum));
+            assertTrue(checksum > 0);
+        }
+    }
+}
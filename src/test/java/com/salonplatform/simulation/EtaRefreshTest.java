@@ -0,0 +1,104 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.dto.CreateWalkInRequest;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.service.SalonQueueLanes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The periodic ETA refresh updates salons one at a time under their lane,
+ * skipping a busy salon without holding up the others.
+ */
+class EtaRefreshTest {
+
+    private final QueueSimulator simulator = new QueueSimulator(
+            new QueueSimulator.Config(2, 1, 1, 5.0, 0.7, 0.0, 0.0, 7L));
+    private SalonQueueLanes lanes;
+    private Salon busy;
+    private Salon idle;
+
+    @BeforeEach
+    void seed() {
+        simulator.seed();
+        Iterator<Salon> salons = simulator.store.salons.values().iterator();
+        busy = salons.next();
+        idle = salons.next();
+
+        lanes = (SalonQueueLanes) ReflectionTestUtils.getField(simulator.queueService, "salonQueueLanes");
+        ReflectionTestUtils.setField(lanes, "laneTimeoutMs", 200L);
+        ReflectionTestUtils.setField(simulator.queueService, "etaDriftThresholdMinutes", 3);
+    }
+
+    @Test
+    void refreshesOverrunSalonsAndSkipsBusyOnes() throws Exception {
+        Booking busyNext = overrun(busy);
+        Booking idleNext = overrun(idle);
+        LocalDateTime busyEta = busyNext.getEstimatedStartTime();
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lanes.execute(busy.getId(), () -> {
+            held.countDown();
+            await(release);
+        }));
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertEquals(1, simulator.queueService.refreshEstimates());
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        // Next in line now starts as soon as the overrunning service ends
+        assertEquals(simulator.now(), idleNext.getEstimatedStartTime());
+        assertEquals(busyEta, busyNext.getEstimatedStartTime());
+
+        assertEquals(1, simulator.queueService.refreshEstimates());
+        assertEquals(simulator.now(), busyNext.getEstimatedStartTime());
+        assertEquals(0, simulator.queueService.refreshEstimates());
+    }
+
+    /**
+     * Start one walk-in, queue another behind it and let the first run
+     * well past its duration. Returns the waiting booking.
+     */
+    private Booking overrun(Salon salon) {
+        UUID first = walkIn(salon);
+        UUID second = walkIn(salon);
+        simulator.bookingService.startService(first);
+        simulator.advance(Duration.ofMinutes(90));
+        return simulator.store.bookings.get(second);
+    }
+
+    private UUID walkIn(Salon salon) {
+        UUID barberId = simulator.store.barbersBySalon.get(salon.getId()).get(0).getId();
+        return simulator.bookingService.createWalkInBooking(salon.getId(), barberId,
+                CreateWalkInRequest.builder()
+                        .salonId(salon.getId())
+                        .serviceId(simulator.store.services.keySet().iterator().next())
+                        .customerName("Walk-in")
+                        .build()).getBookingId();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.entity.*;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.enums.BookingType;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.repository.*;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-in for the JPA repositories the queue services use.
+ * Every repository call counts as one database round trip; calls the
+ * simulation does not support fail loudly instead of returning defaults.
+ */
+final class InMemoryStore {
+
+    final Map<UUID, Salon> salons = new LinkedHashMap<>();
+    final Map<UUID, Barber> barbers = new HashMap<>();
+    final Map<UUID, List<Barber>> barbersBySalon = new HashMap<>();
+    final Map<UUID, com.salonplatform.entity.Service> services = new HashMap<>();
+    final Map<UUID, User> users = new HashMap<>();
+    final Map<UUID, Booking> bookings = new HashMap<>();
+    final Map<UUID, Queue> queueByBooking = new HashMap<>();
+    final Map<UUID, Map<UUID, Queue>> queueBySalon = new HashMap<>();
+
+    long roundTrips;
+    final List<QueueHistory> history = new ArrayList<>();
+
+    final QueueRepository queueRepository = repository(QueueRepository.class, Map.ofEntries(
+            Map.entry("save", args -> saveQueue((Queue) args[0])),
+            Map.entry("delete", args -> deleteQueue((Queue) args[0])),
+            Map.entry("deleteByIdIn", args -> deleteQueue((Collection<?>) args[0])),
+            Map.entry("findByBookingId", args -> Optional.ofNullable(queueByBooking.get((UUID) args[0]))),
+            Map.entry("findSalonIdByBookingId", args -> Optional.ofNullable(queueByBooking.get((UUID) args[0]))
+                    .map(queueEntry -> queueEntry.getSalon().getId())),
+            Map.entry("findByBookingIdIn", args -> ((Collection<?>) args[0]).stream()
+                    .map(queueByBooking::get)
+                    .filter(Objects::nonNull)
+                    .toList()),
+            Map.entry("findBySalonIdAndStatusOrderByPositionAsc", args ->
+                    salonQueue((UUID) args[0], List.of((QueueStatus) args[1]))),
+            Map.entry("findActiveWithBooking", args -> salonQueue((UUID) args[0], toStatuses(args[1]))),
+            Map.entry("findAllActiveWithBooking", args -> queueBySalon.keySet().stream()
+                    .flatMap(salonId -> salonQueue(salonId, toStatuses(args[0])).stream())
+                    .toList()),
+            Map.entry("findBySalonIdAndStatusAndPositionGreaterThanEqualOrderByPositionAsc", args ->
+                    salonQueue((UUID) args[0], List.of((QueueStatus) args[1])).stream()
+                            .filter(entry -> entry.getPosition() >= (Integer) args[2])
+                            .toList()),
+            Map.entry("countWaitingCustomers", args ->
+                    (long) salonQueue((UUID) args[0], List.of(QueueStatus.WAITING)).size()),
+            Map.entry("findMaxPositionBySalon", args -> salonQueue((UUID) args[0], List.of(QueueStatus.WAITING))
+                    .stream()
+                    .map(Queue::getPosition)
+                    .max(Integer::compare))));
+
+    final QueueHistoryRepository queueHistoryRepository = repository(QueueHistoryRepository.class, Map.of(
+            "save", args -> {
+                history.add((QueueHistory) args[0]);
+                return args[0];
+            },
+            "saveAll", args -> {
+                ((Collection<?>) args[0]).forEach(row -> history.add((QueueHistory) row));
+                return args[0];
+            }));
+
+    final BookingRepository bookingRepository = repository(BookingRepository.class, Map.of(
+            "save", args -> saveBooking((Booking) args[0]),
+            "findById", args -> Optional.ofNullable(bookings.get((UUID) args[0])),
+            "findSlotHolders", args -> bookings.values().stream()
+                    .filter(b -> b.getBarber() != null && b.getBarber().getId().equals(args[0]))
+                    .filter(b -> b.getSlotStartTime() != null
+                            && !b.getSlotStartTime().isBefore((LocalDateTime) args[1])
+                            && b.getSlotStartTime().isBefore((LocalDateTime) args[2]))
+                    .filter(b -> ((Collection<?>) args[3]).contains(b.getStatus()))
+                    .toList(),
+            "findSalonIdsWithOverdueOnlineBookings", args -> overdueOnlineBookings(null, (LocalDateTime) args[0])
+                    .stream()
+                    .map(b -> b.getSalon().getId())
+                    .distinct()
+                    .toList(),
+            "lockOverdueOnlineBookings", args -> overdueOnlineBookings((UUID) args[0], (LocalDateTime) args[1])
+                    .stream()
+                    .limit(((Pageable) args[2]).getPageSize())
+                    .toList(),
+            "markNoShow", args -> {
+                ((Collection<?>) args[0]).forEach(id -> bookings.get((UUID) id).setStatus(BookingStatus.NO_SHOW));
+                return ((Collection<?>) args[0]).size();
+            },
+            "findPendingOnlineBookings", args -> bookings.values().stream()
+                    .filter(b -> b.getSalon().getId().equals(args[0]))
+                    .filter(b -> b.getBookingType() == BookingType.ONLINE && b.getStatus() == BookingStatus.PENDING)
+                    .filter(b -> b.getBarber() != null && b.getEstimatedStartTime() != null
+                            && !b.getEstimatedStartTime().isBefore((LocalDateTime) args[1]))
+                    .toList(),
+            "countOutstandingOnlineBookings", args -> bookings.values().stream()
+                    .filter(b -> b.getSalon().getId().equals(args[0]))
+                    .filter(b -> b.getBookingType() == BookingType.ONLINE)
+                    .filter(b -> b.getStatus() == BookingStatus.PENDING || b.getStatus() == BookingStatus.CONFIRMED)
+                    .filter(b -> b.getActualStartTime() == null && b.getEstimatedStartTime() != null
+                            && !b.getEstimatedStartTime().isBefore((LocalDateTime) args[1])
+                            && b.getEstimatedStartTime().isBefore((LocalDateTime) args[2]))
+                    .count()));
+
+    final UserRepository userRepository = repository(UserRepository.class, Map.of(
+            "save", args -> save(users, (User) args[0], User::getId, User::setId),
+            "findById", args -> Optional.ofNullable(users.get((UUID) args[0])),
+            "incrementNoShowCount", args -> {
+                ((Collection<?>) args[0]).forEach(id -> {
+                    User user = users.get((UUID) id);
+                    user.setNoShowCount(user.getNoShowCount() + (Integer) args[1]);
+                });
+                return ((Collection<?>) args[0]).size();
+            },
+            "findByPhone", args -> users.values().stream()
+                    .filter(u -> Objects.equals(u.getPhone(), args[0]))
+                    .findFirst()));
+
+    final SalonRepository salonRepository = repository(SalonRepository.class, Map.of(
+            "findById", args -> Optional.ofNullable(salons.get((UUID) args[0]))));
+
+    final ServiceRepository serviceRepository = repository(ServiceRepository.class, Map.of(
+            "findById", args -> Optional.ofNullable(services.get((UUID) args[0]))));
+
+    final BarberRepository barberRepository = repository(BarberRepository.class, Map.of(
+            "save", args -> args[0],
+            "findById", args -> Optional.ofNullable(barbers.get((UUID) args[0])),
+            "getReferenceById", args -> barbers.get((UUID) args[0]),
+            "findBySalonIdAndIsAvailableTrue", args -> availableBarbers((UUID) args[0]),
+            "findBySalonIdInAndIsAvailableTrue", args -> ((Collection<?>) args[0]).stream()
+                    .flatMap(salonId -> availableBarbers((UUID) salonId).stream())
+                    .toList(),
+            "countBySalonIdAndIsAvailableTrue", args -> (long) availableBarbers((UUID) args[0]).size(),
+            "findAvailableBarbersOrderByLoad", args -> availableBarbers((UUID) args[0]).stream()
+                    .sorted(Comparator.comparing(Barber::getTotalServices))
+                    .toList()));
+
+    /**
+     * Active entries of a salon in position order, read without counting
+     * a round trip (for the simulator's own bookkeeping)
+     */
+    List<Queue> salonQueue(UUID salonId, Collection<QueueStatus> statuses) {
+        List<Queue> entries = new ArrayList<>();
+        for (Queue entry : queueBySalon.getOrDefault(salonId, Map.of()).values()) {
+            if (statuses.contains(entry.getStatus())) {
+                entries.add(entry);
+            }
+        }
+        entries.sort(Comparator.comparing(Queue::getPosition));
+        return entries;
+    }
+
+    void addSalon(Salon salon, List<Barber> salonBarbers) {
+        salons.put(salon.getId(), salon);
+        barbersBySalon.put(salon.getId(), salonBarbers);
+        salonBarbers.forEach(barber -> barbers.put(barber.getId(), barber));
+    }
+
+    /** Confirmed online bookings not started by the cutoff, oldest first; any salon if salonId is null */
+    private List<Booking> overdueOnlineBookings(UUID salonId, LocalDateTime cutoffTime) {
+        return bookings.values().stream()
+                .filter(b -> salonId == null || b.getSalon().getId().equals(salonId))
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED && b.getBookingType() == BookingType.ONLINE)
+                .filter(b -> b.getActualStartTime() == null && b.getEstimatedStartTime().isBefore(cutoffTime))
+                .sorted(Comparator.comparing(Booking::getEstimatedStartTime))
+                .toList();
+    }
+
+    private List<Barber> availableBarbers(UUID salonId) {
+        return barbersBySalon.getOrDefault(salonId, List.of()).stream()
+                .filter(Barber::getIsAvailable)
+                .toList();
+    }
+
+    private Booking saveBooking(Booking booking) {
+        return save(bookings, booking, Booking::getId, Booking::setId);
+    }
+
+    private Queue saveQueue(Queue entry) {
+        if (entry.getId() == null) {
+            entry.setId(UUID.randomUUID());
+        }
+        queueBySalon.computeIfAbsent(entry.getSalon().getId(), id -> new LinkedHashMap<>())
+                .put(entry.getId(), entry);
+        queueByBooking.put(entry.getBooking().getId(), entry);
+        return entry;
+    }
+
+    private Object deleteQueue(Queue entry) {
+        Map<UUID, Queue> salonEntries = queueBySalon.get(entry.getSalon().getId());
+        if (salonEntries != null) {
+            salonEntries.remove(entry.getId());
+        }
+        queueByBooking.remove(entry.getBooking().getId());
+        return null;
+    }
+
+    private int deleteQueue(Collection<?> queueIds) {
+        List<Queue> deleted = queueBySalon.values().stream()
+                .flatMap(entries -> entries.values().stream())
+                .filter(entry -> queueIds.contains(entry.getId()))
+                .toList();
+        deleted.forEach(this::deleteQueue);
+        return deleted.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<QueueStatus> toStatuses(Object statuses) {
+        return (Collection<QueueStatus>) statuses;
+    }
+
+    private static <T> T save(Map<UUID, T> table, T entity,
+                              Function<T, UUID> id, java.util.function.BiConsumer<T, UUID> setId) {
+        if (id.apply(entity) == null) {
+            setId.accept(entity, UUID.randomUUID());
+        }
+        table.put(id.apply(entity), entity);
+        return entity;
+    }
+
+    private <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "toString":
+                            return type.getSimpleName() + "(in-memory)";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            break;
+                    }
+
+                    Function<Object[], Object> handler = methods.get(method.getName());
+                    if (handler == null) {
+                        throw new UnsupportedOperationException(
+                                type.getSimpleName() + "." + method.getName() + " is not simulated");
+                    }
+                    roundTrips++;
+                    return handler.apply(args);
+                }));
+    }
+}
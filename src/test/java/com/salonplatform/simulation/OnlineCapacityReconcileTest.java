@@ -0,0 +1,59 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.dto.CreateBookingRequest;
+import com.salonplatform.entity.Booking;
+import com.salonplatform.entity.Salon;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reconciling online capacity keeps counting bookings that are past their
+ * estimated start but not yet started or marked no-show.
+ */
+class OnlineCapacityReconcileTest {
+
+    private final QueueSimulator simulator = new QueueSimulator(
+            new QueueSimulator.Config(1, 2, 1, 5.0, 0.7, 0.0, 0.0, 7L));
+
+    @Test
+    void overdueBookingStillHoldsCapacityAfterReconcile() {
+        simulator.seed();
+        Salon salon = simulator.store.salons.values().iterator().next();
+
+        int freshCapacity = remainingCapacity(salon);
+        simulator.onlineCapacity.reconcile();
+
+        UUID bookingId = online(salon);
+        Booking booking = simulator.store.bookings.get(bookingId);
+        simulator.advance(Duration.ofMinutes(10));
+        assertNull(booking.getActualStartTime());
+        assertTrue(booking.getEstimatedStartTime().isBefore(simulator.now()), "booking should be overdue");
+
+        simulator.onlineCapacity.reconcile();
+        assertEquals(freshCapacity - 1, remainingCapacity(salon));
+    }
+
+    /** Admissions left before the limit, leaving the counter reconciled afterwards */
+    private int remainingCapacity(Salon salon) {
+        int admitted = 0;
+        while (simulator.onlineCapacity.tryAcquire(salon)) {
+            admitted++;
+        }
+        simulator.onlineCapacity.reconcile();
+        return admitted;
+    }
+
+    private UUID online(Salon salon) {
+        UUID bookingId = simulator.bookingService.createOnlineBooking(simulator.newCustomer().getId(),
+                CreateBookingRequest.builder()
+                        .salonId(salon.getId())
+                        .serviceId(simulator.store.services.keySet().iterator().next())
+                        .build()).getBookingId();
+        simulator.bookingService.confirmBooking(bookingId, "test-payment");
+        return bookingId;
+    }
+}
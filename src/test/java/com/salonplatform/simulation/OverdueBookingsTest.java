@@ -0,0 +1,104 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.dto.CreateBookingRequest;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.BookingStatus;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.service.SalonQueueLanes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Overdue no-shows are processed salon by salon, so a salon whose queue is
+ * busy does not hold up or roll back the others.
+ */
+class OverdueBookingsTest {
+
+    private final QueueSimulator simulator = new QueueSimulator(
+            new QueueSimulator.Config(2, 2, 1, 5.0, 0.7, 0.0, 0.0, 7L));
+    private SalonQueueLanes lanes;
+    private Salon busy;
+    private Salon idle;
+
+    @BeforeEach
+    void seed() {
+        simulator.seed();
+        Iterator<Salon> salons = simulator.store.salons.values().iterator();
+        busy = salons.next();
+        idle = salons.next();
+
+        lanes = (SalonQueueLanes) ReflectionTestUtils.getField(simulator.queueService, "salonQueueLanes");
+        ReflectionTestUtils.setField(lanes, "laneTimeoutMs", 200L);
+        ReflectionTestUtils.setField(simulator.bookingService, "autoCancelMinutes", 20);
+    }
+
+    @Test
+    void busySalonDoesNotBlockOthers() throws Exception {
+        List<UUID> busyBookings = online(busy, 2);
+        List<UUID> idleBookings = online(idle, 3);
+        simulator.advance(Duration.ofHours(3));
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lanes.execute(busy.getId(), () -> {
+            held.countDown();
+            await(release);
+        }));
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertEquals(idleBookings.size(), simulator.bookingService.processOverdueBookings(200));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        idleBookings.forEach(id -> assertEquals(BookingStatus.NO_SHOW, simulator.store.bookings.get(id).getStatus()));
+        // Archived as no-shows, at the simulated time
+        assertEquals(idleBookings.size(), simulator.store.history.size());
+        simulator.store.history.forEach(row -> {
+            assertEquals(QueueStatus.NO_SHOW, row.getStatus());
+            assertEquals(simulator.now(), row.getArchivedAt());
+        });
+        assertTrue(simulator.store.salonQueue(idle.getId(), List.of(QueueStatus.WAITING)).isEmpty());
+        busyBookings.forEach(id -> assertEquals(BookingStatus.CONFIRMED, simulator.store.bookings.get(id).getStatus()));
+
+        // Picked up on the next pass once the salon is free
+        assertEquals(busyBookings.size(), simulator.bookingService.processOverdueBookings(200));
+        assertEquals(0, simulator.bookingService.processOverdueBookings(200));
+    }
+
+    private List<UUID> online(Salon salon, int count) {
+        List<UUID> bookingIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID bookingId = simulator.bookingService.createOnlineBooking(simulator.newCustomer().getId(),
+                    CreateBookingRequest.builder()
+                            .salonId(salon.getId())
+                            .serviceId(simulator.store.services.keySet().iterator().next())
+                            .build()).getBookingId();
+            simulator.bookingService.confirmBooking(bookingId, "test-payment");
+            bookingIds.add(bookingId);
+        }
+        return bookingIds;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
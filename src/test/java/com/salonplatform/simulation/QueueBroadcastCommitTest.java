@@ -0,0 +1,82 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.dto.CreateWalkInRequest;
+import com.salonplatform.entity.Salon;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Queue broadcasts leave only once the queue change commits.
+ */
+class QueueBroadcastCommitTest {
+
+    private final QueueSimulator simulator = new QueueSimulator(
+            new QueueSimulator.Config(1, 2, 1, 5.0, 0.7, 0.0, 0.0, 7L));
+    private Salon salon;
+
+    @BeforeEach
+    void seed() {
+        simulator.seed();
+        salon = simulator.store.salons.values().iterator().next();
+        walkIn();
+    }
+
+    @AfterEach
+    void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rolledBackChangeIsNeverBroadcast() {
+        long sent = simulator.broadcasts.messages;
+
+        TransactionSynchronizationManager.initSynchronization();
+        walkIn();
+        assertEquals(sent, simulator.broadcasts.messages, "sent before commit");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(sent, simulator.broadcasts.messages);
+    }
+
+    @Test
+    void committedChangeIsBroadcastAfterCommit() {
+        long sent = simulator.broadcasts.messages;
+
+        TransactionSynchronizationManager.initSynchronization();
+        walkIn();
+        assertEquals(sent, simulator.broadcasts.messages, "sent before commit");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertTrue(simulator.broadcasts.messages > sent);
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    private UUID walkIn() {
+        UUID barberId = simulator.store.barbersBySalon.get(salon.getId()).get(0).getId();
+        return simulator.bookingService.createWalkInBooking(salon.getId(), barberId,
+                CreateWalkInRequest.builder()
+                        .salonId(salon.getId())
+                        .serviceId(simulator.store.services.keySet().iterator().next())
+                        .customerName("Walk-in")
+                        .build()).getBookingId();
+    }
+}
@@ -0,0 +1,90 @@
+package com.salonplatform.simulation;
+
+import com.salonplatform.dto.CreateBookingRequest;
+import com.salonplatform.dto.CreateWalkInRequest;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.entity.Salon;
+import com.salonplatform.enums.QueueStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Waiting positions stay 1..n and follow lane order while a service is in
+ * progress, for entries joining at the end and in the middle.
+ */
+class QueuePositionTest {
+
+    private final QueueSimulator simulator = new QueueSimulator(
+            new QueueSimulator.Config(1, 2, 1, 5.0, 0.7, 0.0, 0.0, 7L));
+    private Salon salon;
+
+    @Test
+    void positionsStayUniqueAndOrderedAfterServiceStarts() {
+        simulator.seed();
+        salon = simulator.store.salons.values().iterator().next();
+
+        UUID first = walkIn();
+        walkIn();
+        walkIn();
+        simulator.bookingService.startService(first);
+        assertPositions(2);
+
+        // Walk-in lane: joins at the end
+        UUID last = walkIn();
+        assertPositions(3);
+        assertEquals(3, simulator.store.queueByBooking.get(last).getPosition());
+
+        // Idle online lane: the first online booking goes to the front, the next one in between
+        online();
+        assertPositions(4);
+        UUID middle = online();
+        assertPositions(5);
+        int middlePosition = simulator.store.queueByBooking.get(middle).getPosition();
+        assertTrue(middlePosition > 1 && middlePosition < 5, "online entry placed at " + middlePosition);
+
+        simulator.bookingService.startService(waiting().get(0).getBooking().getId());
+        walkIn();
+        assertPositions(5);
+    }
+
+    private void assertPositions(int expectedWaiting) {
+        List<Queue> waiting = waiting();
+        assertEquals(expectedWaiting, waiting.size());
+        for (int i = 0; i < waiting.size(); i++) {
+            assertEquals(i + 1, waiting.get(i).getPosition(), "positions " + waiting.stream()
+                    .map(Queue::getPosition).toList());
+            if (i > 0) {
+                assertTrue(waiting.get(i - 1).getLaneTag() < waiting.get(i).getLaneTag(),
+                        "position order must follow lane order");
+            }
+        }
+    }
+
+    private List<Queue> waiting() {
+        return simulator.store.salonQueue(salon.getId(), List.of(QueueStatus.WAITING));
+    }
+
+    private UUID walkIn() {
+        UUID barberId = simulator.store.barbersBySalon.get(salon.getId()).get(0).getId();
+        return simulator.bookingService.createWalkInBooking(salon.getId(), barberId,
+                CreateWalkInRequest.builder()
+                        .salonId(salon.getId())
+                        .serviceId(simulator.store.services.keySet().iterator().next())
+                        .customerName("Walk-in")
+                        .build()).getBookingId();
+    }
+
+    private UUID online() {
+        UUID bookingId = simulator.bookingService.createOnlineBooking(simulator.newCustomer().getId(),
+                CreateBookingRequest.builder()
+                        .salonId(salon.getId())
+                        .serviceId(simulator.store.services.keySet().iterator().next())
+                        .build()).getBookingId();
+        simulator.bookingService.confirmBooking(bookingId, "test-payment");
+        return bookingId;
+    }
+}
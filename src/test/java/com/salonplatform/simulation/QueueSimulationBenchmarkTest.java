@@ -0,0 +1,38 @@
+package com.salonplatform.simulation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Simulated trading day across many salons. Tagged "load": run with
+ * mvn test -Pload-tests, and scale it up with -Dsim.salons=5000
+ * -Dsim.hours=10 to compare queue changes under load.
+ */
+@Tag("load")
+@Slf4j
+class QueueSimulationBenchmarkTest {
+
+    @Test
+    void simulateTradingDay() {
+        QueueSimulator.Config config = new QueueSimulator.Config(
+                Integer.getInteger("sim.salons", 1000),
+                Integer.getInteger("sim.barbers", 3),
+                Integer.getInteger("sim.hours", 4),
+                5.0,   // arrivals per salon per hour
+                0.7,   // online share
+                0.05,  // online no-show rate
+                0.10,  // online late-arrival rate
+                42L);
+
+        QueueSimulator.Report report = new QueueSimulator(config).run();
+        log.info("Simulated day\n{}", report.summary());
+
+        // Every arrival is either served or dropped as a no-show, and the queues drain
+        assertEquals(report.arrivals(), report.served() + report.noShows());
+        assertEquals(0, report.leftInQueue());
+        assertEquals(report.arrivals(), report.historyRows());
+    }
+}
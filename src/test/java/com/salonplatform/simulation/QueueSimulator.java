@@ -0,0 +1,513 @@
+package com.salonplatform.simulation;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.salonplatform.dto.BookingResponse;
+import com.salonplatform.dto.CreateBookingRequest;
+import com.salonplatform.dto.CreateWalkInRequest;
+import com.salonplatform.entity.*;
+import com.salonplatform.entity.Queue;
+import com.salonplatform.enums.QueueStatus;
+import com.salonplatform.enums.UserRole;
+import com.salonplatform.journal.QueueEventJournal;
+import com.salonplatform.service.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.JacksonJsonMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Discrete-event simulation of a trading day across many salons. Drives
+ * the real BookingService and QueueService over in-memory repositories
+ * with Poisson arrivals, no-shows and late arrivals, and records mutation
+ * latency, repository round trips per operation, broadcast volume and
+ * wait-estimate error.
+ */
+final class QueueSimulator {
+
+    record Config(int salons, int barbersPerSalon, int hours, double arrivalsPerHour,
+                  double onlineShare, double noShowRate, double lateRate, long seed) {
+    }
+
+    private enum Fate { PRESENT, LATE, NO_SHOW }
+
+    private static final LocalDateTime OPENING = LocalDateTime.of(2026, 1, 5, 9, 0);
+    private static final int[] SERVICE_MINUTES = {30, 15, 45, 20};
+
+    private final Config config;
+    private final Random random;
+    private final SimClock clock = new SimClock(OPENING);
+    final InMemoryStore store = new InMemoryStore();
+    final BroadcastCounter broadcasts = new BroadcastCounter();
+    final QueueService queueService;
+    final BookingService bookingService;
+    final OnlineCapacityLimiter onlineCapacity;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final List<com.salonplatform.entity.Service> services = new ArrayList<>();
+    private final Map<UUID, Double> barberSpeed = new HashMap<>();
+    private final Map<UUID, Customer> customers = new HashMap<>();
+    private final Set<UUID> busyBarbers = new HashSet<>();
+    private final Map<String, OpStats> ops = new LinkedHashMap<>();
+    private final List<Integer> estimateErrors = new ArrayList<>();
+    private long sequence;
+    private long nowSeconds;
+    private int arrivals;
+    private int served;
+    private int noShows;
+    private int lateArrivals;
+
+    QueueSimulator(Config config) {
+        this.config = config;
+        this.random = new Random(config.seed());
+
+        ServiceDurationEstimator durationEstimator = new ServiceDurationEstimator();
+        ReflectionTestUtils.setField(durationEstimator, "alpha", 0.2);
+        ReflectionTestUtils.setField(durationEstimator, "minSamples", 5);
+
+        SalonQueueLanes lanes = new SalonQueueLanes();
+        ReflectionTestUtils.setField(lanes, "laneTimeoutMs", 5000L);
+
+        WaitTimeEstimator waitTimeEstimator = new WaitTimeEstimator(
+                store.queueRepository, store.barberRepository, durationEstimator, clock);
+
+        // Every salon and customer counts as subscribed, so broadcast volume is the worst case
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        QueueSubscriptionRegistry subscriptions =
+                new QueueSubscriptionRegistry(event -> { }, meterRegistry, false, "simple");
+        SimpMessagingTemplate template = new SimpMessagingTemplate(broadcasts);
+        template.setMessageConverter(new JacksonJsonMessageConverter());
+        QueueBroadcaster broadcaster = new QueueBroadcaster(
+                template, new QueueFrameCodec(false), subscriptions, meterRegistry);
+
+        NotificationService notifications = Mockito.mock(NotificationService.class);
+        TransactionTemplate transactions = new TransactionTemplate(new SimTransactionManager());
+
+        BarberAssignmentEngine assignmentEngine = new BarberAssignmentEngine(
+                store.queueRepository, store.bookingRepository, store.barberRepository, durationEstimator, clock);
+        ReflectionTestUtils.setField(assignmentEngine, "specializationWeightMinutes", 10);
+        ReflectionTestUtils.setField(assignmentEngine, "rebuildIntervalMs", 300_000L);
+
+        SlotCalendar slotCalendar = new SlotCalendar(store.bookingRepository, clock);
+        ReflectionTestUtils.setField(slotCalendar, "granularityMinutes", 5);
+
+        onlineCapacity = new OnlineCapacityLimiter(store.bookingRepository, store.barberRepository, clock);
+        ReflectionTestUtils.setField(onlineCapacity, "bookingsPerBarber", 8);
+
+        queueService = new QueueService(store.queueRepository, store.queueHistoryRepository,
+                store.bookingRepository, store.barberRepository, notifications, broadcaster,
+                new QueueEventStreams(null, subscriptions, 1, 16), new QueueDeltaTracker(), lanes,
+                new QueueLanePolicy(true), assignmentEngine, waitTimeEstimator, new QueueSnapshotCache(),
+                new QueueEventJournal(), subscriptions, transactions, clock);
+        bookingService = new BookingService(store.bookingRepository, store.salonRepository,
+                store.serviceRepository, store.userRepository, store.barberRepository, store.queueRepository,
+                Mockito.mock(OutboxService.class), queueService, assignmentEngine,
+                slotCalendar, onlineCapacity, waitTimeEstimator, durationEstimator, transactions, clock);
+    }
+
+    Report run() {
+        seed();
+        long closing = config.hours() * 3600L;
+
+        for (Salon salon : store.salons.values()) {
+            schedule(nextArrivalAfter(0), () -> arrive(salon, closing));
+        }
+
+        // Per-operation INFO logging would dominate the measured latencies
+        Logger serviceLogger = (Logger) LoggerFactory.getLogger("com.salonplatform.service");
+        Level level = serviceLogger.getLevel();
+        serviceLogger.setLevel(Level.WARN);
+        try {
+            // Arrivals stop at closing; customers already queued are still served
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                nowSeconds = event.at();
+                clock.set(OPENING.plusSeconds(nowSeconds));
+                event.action().run();
+            }
+        } finally {
+            serviceLogger.setLevel(level);
+        }
+
+        int leftInQueue = store.queueBySalon.values().stream().mapToInt(Map::size).sum();
+        return new Report(config, arrivals, served, noShows, lateArrivals, leftInQueue,
+                store.history.size(), new ArrayList<>(ops.values()), broadcasts, estimateErrors);
+    }
+
+    /**
+     * Move simulated time forward, for tests that drive the services directly
+     */
+    void advance(Duration duration) {
+        nowSeconds += duration.toSeconds();
+        clock.set(OPENING.plusSeconds(nowSeconds));
+    }
+
+    LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    void seed() {
+        for (int i = 0; i < SERVICE_MINUTES.length; i++) {
+            com.salonplatform.entity.Service service = com.salonplatform.entity.Service.builder()
+                    .id(UUID.randomUUID())
+                    .name("Service " + (i + 1))
+                    .price(BigDecimal.valueOf(100L + 50L * i))
+                    .durationMinutes(SERVICE_MINUTES[i])
+                    .isActive(true)
+                    .build();
+            services.add(service);
+            store.services.put(service.getId(), service);
+        }
+
+        for (int s = 0; s < config.salons(); s++) {
+            Salon salon = Salon.builder()
+                    .id(UUID.randomUUID())
+                    .name("Salon " + s)
+                    .acceptsOnlineBooking(true)
+                    .isOpen(true)
+                    .onlineBookingPercentage(70)
+                    .build();
+
+            List<Barber> barbers = new ArrayList<>();
+            for (int b = 0; b < config.barbersPerSalon(); b++) {
+                Barber barber = Barber.builder()
+                        .id(UUID.randomUUID())
+                        .salon(salon)
+                        .name("Barber " + b)
+                        .isAvailable(true)
+                        .totalServices(0)
+                        .build();
+                barbers.add(barber);
+                // Some barbers are consistently faster or slower than the menu says
+                barberSpeed.put(barber.getId(), 0.8 + 0.4 * random.nextDouble());
+            }
+            store.addSalon(salon, barbers);
+        }
+    }
+
+    private void arrive(Salon salon, long closing) {
+        long next = nextArrivalAfter(nowSeconds);
+        if (next < closing) {
+            schedule(next, () -> arrive(salon, closing));
+        }
+        arrivals++;
+
+        com.salonplatform.entity.Service service = services.get(random.nextInt(services.size()));
+        UUID bookingId;
+        Fate fate;
+
+        if (random.nextDouble() < config.onlineShare()) {
+            User customer = newCustomer();
+            BookingResponse booking = timed("createOnlineBooking", () -> bookingService.createOnlineBooking(
+                    customer.getId(), CreateBookingRequest.builder()
+                            .salonId(salon.getId())
+                            .serviceId(service.getId())
+                            .build()));
+            bookingId = booking.getBookingId();
+            timed("confirmBooking", () -> bookingService.confirmBooking(bookingId, "sim-payment"));
+
+            double roll = random.nextDouble();
+            fate = roll < config.noShowRate() ? Fate.NO_SHOW
+                    : roll < config.noShowRate() + config.lateRate() ? Fate.LATE
+                    : Fate.PRESENT;
+        } else {
+            List<Barber> barbers = store.barbersBySalon.get(salon.getId());
+            Barber barber = barbers.get(random.nextInt(barbers.size()));
+            bookingId = timed("createWalkInBooking", () -> bookingService.createWalkInBooking(
+                    salon.getId(), barber.getId(), CreateWalkInRequest.builder()
+                            .salonId(salon.getId())
+                            .serviceId(service.getId())
+                            .customerName("Walk-in")
+                            .build())).getBookingId();
+            fate = Fate.PRESENT;
+        }
+
+        Queue entry = store.queueByBooking.get(bookingId);
+        customers.put(bookingId, new Customer(bookingId, salon.getId(), nowSeconds,
+                entry.getEstimatedWaitMinutes(), fate));
+
+        dispatch(salon.getId());
+    }
+
+    /** Every idle barber calls the next customer they can serve. */
+    private void dispatch(UUID salonId) {
+        for (Barber barber : store.barbersBySalon.get(salonId)) {
+            while (!busyBarbers.contains(barber.getId())) {
+                Queue next = nextFor(salonId, barber);
+                if (next == null) {
+                    break;
+                }
+
+                Customer customer = customers.get(next.getBooking().getId());
+                switch (customer.fate) {
+                    case NO_SHOW -> {
+                        noShows++;
+                        timed("markNoShow", () -> bookingService.markNoShow(customer.bookingId));
+                    }
+                    case LATE -> {
+                        // Shows up after being called and goes to the back
+                        lateArrivals++;
+                        customer.fate = Fate.PRESENT;
+                        customer.late = true;
+                        timed("handleLateArrival", () -> queueService.handleLateArrival(customer.bookingId));
+                    }
+                    case PRESENT -> start(barber, customer);
+                }
+            }
+        }
+    }
+
+    private Queue nextFor(UUID salonId, Barber barber) {
+        for (Queue entry : store.salonQueue(salonId, List.of(QueueStatus.WAITING))) {
+            if (entry.getBarber() == null || entry.getBarber().getId().equals(barber.getId())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void start(Barber barber, Customer customer) {
+        timed("startService", () -> bookingService.startService(customer.bookingId));
+        busyBarbers.add(barber.getId());
+        served++;
+
+        if (!customer.late) {
+            int actualWait = (int) ((nowSeconds - customer.joinedAt) / 60);
+            estimateErrors.add(customer.estimatedWait - actualWait);
+        }
+
+        Booking booking = store.bookings.get(customer.bookingId);
+        double minutes = booking.getService().getDurationMinutes()
+                * barberSpeed.get(barber.getId())
+                * Math.exp(0.25 * random.nextGaussian());
+        long duration = Math.max(300, Math.round(minutes * 60));
+
+        schedule(nowSeconds + duration, () -> {
+            timed("completeService", () -> bookingService.completeService(customer.bookingId));
+            busyBarbers.remove(barber.getId());
+            dispatch(customer.salonId);
+        });
+    }
+
+    User newCustomer() {
+        User customer = User.builder()
+                .id(UUID.randomUUID())
+                .phone("sim-" + sequence)
+                .fullName("Customer " + sequence)
+                .password("N/A")
+                .role(UserRole.CUSTOMER)
+                .noShowCount(0)
+                .totalBookings(0)
+                .build();
+        store.users.put(customer.getId(), customer);
+        return customer;
+    }
+
+    private long nextArrivalAfter(long seconds) {
+        double meanGap = 3600.0 / config.arrivalsPerHour();
+        return seconds + Math.max(1, Math.round(-meanGap * Math.log(1 - random.nextDouble())));
+    }
+
+    private void schedule(long at, Runnable action) {
+        events.add(new Event(at, sequence++, action));
+    }
+
+    private void timed(String operation, Runnable action) {
+        timed(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T timed(String operation, Supplier<T> action) {
+        long roundTripsBefore = store.roundTrips;
+        long messagesBefore = broadcasts.messages;
+        long start = System.nanoTime();
+
+        T result = action.get();
+
+        long elapsed = System.nanoTime() - start;
+        ops.computeIfAbsent(operation, OpStats::new)
+                .record(elapsed, store.roundTrips - roundTripsBefore, broadcasts.messages - messagesBefore);
+        return result;
+    }
+
+    private record Event(long at, long sequence, Runnable action) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class Customer {
+        private final UUID bookingId;
+        private final UUID salonId;
+        private final long joinedAt;
+        private final int estimatedWait;
+        private Fate fate;
+        private boolean late;
+
+        private Customer(UUID bookingId, UUID salonId, long joinedAt, int estimatedWait, Fate fate) {
+            this.bookingId = bookingId;
+            this.salonId = salonId;
+            this.joinedAt = joinedAt;
+            this.estimatedWait = estimatedWait;
+            this.fate = fate;
+        }
+    }
+
+    static final class OpStats {
+        private final String name;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long roundTrips;
+        long messages;
+
+        OpStats(String name) {
+            this.name = name;
+        }
+
+        void record(long nanos, long trips, long sent) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            roundTrips += trips;
+            messages += sent;
+        }
+
+        long percentileMicros(double p) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)] / 1000;
+        }
+    }
+
+    /** Counts what QueueBroadcaster hands to the broker. */
+    static final class BroadcastCounter implements MessageChannel {
+        long messages;
+        private long salonMessages;
+        private long salonBytes;
+        private long positionMessages;
+        private long positionBytes;
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            int bytes = message.getPayload() instanceof byte[] payload ? payload.length : 0;
+
+            messages++;
+            if (destination != null && destination.startsWith("/user/")) {
+                positionMessages++;
+                positionBytes += bytes;
+            } else {
+                salonMessages++;
+                salonBytes += bytes;
+            }
+            return true;
+        }
+    }
+
+    record Report(Config config, int arrivals, int served, int noShows, int lateArrivals, int leftInQueue,
+                  long historyRows, List<OpStats> ops, BroadcastCounter broadcasts, List<Integer> estimateErrors) {
+
+        double meanAbsoluteEstimateError() {
+            return estimateErrors.stream().mapToInt(Math::abs).average().orElse(0);
+        }
+
+        /** Multi-line summary for the benchmark log */
+        String summary() {
+            Formatter out = new Formatter();
+            out.format("%d salons x %d barbers, %d h: %d arrivals, %d served, %d no-shows, %d late%n",
+                    config.salons(), config.barbersPerSalon(), config.hours(),
+                    arrivals, served, noShows, lateArrivals);
+
+            out.format("%-20s %8s %9s %9s %9s %11s %10s%n",
+                    "operation", "count", "p50 us", "p99 us", "max us", "trips/op", "msgs/op");
+            for (OpStats op : ops) {
+                out.format("%-20s %8d %9d %9d %9d %11.1f %10.1f%n",
+                        op.name, op.count, op.percentileMicros(0.5), op.percentileMicros(0.99),
+                        op.percentileMicros(1.0), (double) op.roundTrips / op.count,
+                        (double) op.messages / op.count);
+            }
+
+            out.format("broadcasts: %d salon frames (%d KB), %d position frames (%d KB)%n",
+                    broadcasts.salonMessages, broadcasts.salonBytes / 1024,
+                    broadcasts.positionMessages, broadcasts.positionBytes / 1024);
+
+            int[] absolute = estimateErrors.stream().mapToInt(Math::abs).sorted().toArray();
+            if (absolute.length > 0) {
+                out.format("wait estimate error (min): mean abs %.1f, bias %+.1f, p50 %d, p90 %d%n",
+                        meanAbsoluteEstimateError(),
+                        estimateErrors.stream().mapToInt(Integer::intValue).average().orElse(0),
+                        absolute[absolute.length / 2], absolute[(int) (absolute.length * 0.9)]);
+            }
+            return out.toString();
+        }
+    }
+
+    /** Transactions without a database: synchronizations run, commit and rollback do nothing. */
+    private static final class SimTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    /** Clock the services read, advanced by the event loop. */
+    private static final class SimClock extends Clock {
+        private final ZoneId zone = ZoneId.systemDefault();
+        private Instant instant;
+
+        private SimClock(LocalDateTime start) {
+            set(start);
+        }
+
+        private void set(LocalDateTime time) {
+            instant = time.atZone(zone).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}